@@ -2,8 +2,10 @@ package org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class Dwese2526TicketLoggerApiAovApplication {
 
 	public static void main(String[] args) {
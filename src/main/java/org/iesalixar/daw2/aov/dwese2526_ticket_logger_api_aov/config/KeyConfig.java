@@ -1,15 +1,10 @@
 package org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.config;
 
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.utils.JwtKeyRing;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
-import java.io.FileInputStream;
-import java.security.KeyPair;
-import java.security.KeyStore;
-import java.security.PrivateKey;
-import java.security.PublicKey;
-
 @Configuration
 public class KeyConfig {
 
@@ -21,7 +16,7 @@ public class KeyConfig {
     @Value("${jwt.keystore.password}")
     private String keystorePassword;
 
-    // Alias del par de claves dentro del keystore
+    // Alias del par de claves de firma dentro del keystore
     @Value("${jwt.keystore.alias}")
     private String keystoreAlias;
 
@@ -30,31 +25,21 @@ public class KeyConfig {
     private String keystoreType;
 
     /**
-     * Carga el par de claves (privada + pública) desde el keystore y lo expone como Bean.
+     * Carga el anillo de claves JWT desde el keystore y lo expone como Bean.
+     *
+     * <p>Firma con el par de claves del alias configurado y verifica con la clave pública de
+     * cualquier entrada del keystore, localizada por {@code kid}. El fichero se vuelve a leer
+     * en segundo plano cuando cambia ({@code jwt.keystore.reload-interval}).</p>
+     *
+     * <p>El tipo de clave decide el algoritmo de firma de los JWT (ver {@code JwtSignatureAlgorithms}):
+     * RSA → RS256, EC P-256 → ES256, Ed25519 → EdDSA. Por ejemplo, para ES256:</p>
+     * <pre>
+     * keytool -genkeypair -alias jwt -keyalg EC -groupname secp256r1 -sigalg SHA256withECDSA \
+     *         -storetype PKCS12 -keystore jwt.p12 -dname "CN=ticket-logger"
+     * </pre>
      */
     @Bean
-    public KeyPair jwtKeyPair() throws Exception {
-
-        // 1) Abrir el keystore (según tipo)
-        KeyStore keyStore = KeyStore.getInstance(keystoreType);
-
-        // 2) Cargar el fichero del keystore usando su contraseña
-        try (FileInputStream fis = new FileInputStream(keystorePath)) {
-            keyStore.load(fis, keystorePassword.toCharArray());
-        }
-
-        // 3) Leer la clave privada (con el alias)
-        PrivateKey privateKey = (PrivateKey) keyStore.getKey(
-                keystoreAlias,
-                keystorePassword.toCharArray()
-        );
-
-        // 4) Leer la clave pública desde el certificado del alias
-        PublicKey publicKey = keyStore
-                .getCertificate(keystoreAlias)
-                .getPublicKey();
-
-        // 5) Devolver ambas en un KeyPair
-        return new KeyPair(publicKey, privateKey);
+    public JwtKeyRing jwtKeyRing() throws Exception {
+        return new JwtKeyRing(keystorePath, keystorePassword, keystoreAlias, keystoreType);
     }
 }
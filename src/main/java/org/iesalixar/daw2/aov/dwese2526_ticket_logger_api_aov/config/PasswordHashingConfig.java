@@ -0,0 +1,50 @@
+package org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool dedicado al hashing de contraseñas (BCrypt), aislado de los hilos de Tomcat.
+ */
+@Configuration
+public class PasswordHashingConfig {
+
+    // Hilos del pool; 0 = la mitad de los núcleos (mínimo 1)
+    @Value("${security.password-hashing.threads:0}")
+    private int threads;
+
+    // Tareas que pueden esperar en cola antes de rechazar con 503
+    @Value("${security.password-hashing.queue-capacity:64}")
+    private int queueCapacity;
+
+    /**
+     * Pool de tamaño fijo con cola acotada. La política {@code AbortPolicy} hace que una cola
+     * llena se traduzca en un rechazo inmediato en lugar de bloquear al llamante.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ThreadPoolExecutor passwordHashingExecutor() {
+        int size = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "password-hashing-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+
+        return new ThreadPoolExecutor(
+                size, size,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                threadFactory,
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+    }
+}
@@ -1,10 +1,15 @@
 package org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.config;
 
 import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.filters.JwtAuthenticationFilter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.services.CustomUserDetailsService;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.utils.BoundedPasswordEncoder;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.utils.CalibratedBCryptPasswordEncoder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.annotation.Order;
@@ -14,12 +19,16 @@ import org.springframework.security.config.annotation.authentication.configurati
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ThreadPoolExecutor;
+
 /**
  * Configuración de seguridad de la aplicación.
  */
@@ -40,6 +49,40 @@ public class SecurityConfig {
     private CustomUserDetailsService customUserDetailsService;
 
 
+    /** Endpoints públicos (login, refresh, logout, JWKS y página de error): no usan el JWT. */
+    static final String[] PUBLIC_PATHS = {"/api/auth/**", "/error", "/error/**"};
+
+    /** Ficheros estáticos servidos desde {@code app.upload-root} (nombres UUID, p.ej. avatares). */
+    static final String[] STATIC_PATHS = {"/uploads/**"};
+
+
+    /**
+     * Cadena mínima para rutas públicas y estáticas.
+     *
+     * <p>Se evalúa antes que el resto: estas peticiones no pasan por {@link JwtAuthenticationFilter}
+     * ni crean contexto de seguridad, sesión, caché de peticiones ni autenticación anónima.
+     * Solo se mantienen las cabeceras de seguridad de la respuesta.</p>
+     */
+    @Bean
+    @Order(0)
+    public SecurityFilterChain publicChain(HttpSecurity http) throws Exception {
+
+        http
+                .securityMatcher(concat(PUBLIC_PATHS, STATIC_PATHS))
+                .csrf(AbstractHttpConfigurer::disable)
+                .formLogin(AbstractHttpConfigurer::disable)
+                .httpBasic(AbstractHttpConfigurer::disable)
+                .logout(AbstractHttpConfigurer::disable)
+                .securityContext(AbstractHttpConfigurer::disable)
+                .sessionManagement(AbstractHttpConfigurer::disable)
+                .requestCache(AbstractHttpConfigurer::disable)
+                .anonymous(AbstractHttpConfigurer::disable)
+                .authorizeHttpRequests(auth -> auth.anyRequest().permitAll());
+
+        return http.build();
+    }
+
+
     @Bean
     @Order(1)
     public SecurityFilterChain swaggerChain(HttpSecurity http) throws Exception {
@@ -102,9 +145,9 @@ public class SecurityConfig {
                 // 5) Autorización por rutas (ajusta a /api/**)
                 .authorizeHttpRequests(auth -> auth
 
-                        // Endpoints públicos
-                        .requestMatchers("/api/auth/**").permitAll()
-                        .requestMatchers("/error", "/error/**").permitAll()
+                        // Endpoints públicos (normalmente ya los atiende publicChain)
+                        .requestMatchers(PUBLIC_PATHS).permitAll()
+                        .requestMatchers(STATIC_PATHS).permitAll()
 
                         // Ejemplos por roles (tu lógica, adaptada a /api)
                         .requestMatchers("/api/users/**").hasRole("ADMIN")
@@ -126,16 +169,56 @@ public class SecurityConfig {
 
 
 
+    /**
+     * Evita que Spring Boot registre {@link JwtAuthenticationFilter} (es un {@code @Component})
+     * también como filtro del servlet para todas las URLs: solo debe ejecutarse dentro de
+     * {@link #securityFilterChain}, no en las rutas de {@link #publicChain}.
+     */
+    @Bean
+    public FilterRegistrationBean<JwtAuthenticationFilter> jwtAuthenticationFilterRegistration(
+            JwtAuthenticationFilter filter) {
+        FilterRegistrationBean<JwtAuthenticationFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setEnabled(false);
+        return registration;
+    }
+
+
+    private static String[] concat(String[] first, String[] second) {
+        String[] result = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, result, first.length, second.length);
+        return result;
+    }
+
+
     /**
      * Configura el codificador de contraseñas para cifrar las contraseñas de los usuarios
      * utilizando BCrypt.
      *
+     * <p>BCrypt se ejecuta en el pool acotado {@code passwordHashingExecutor}: si está saturado
+     * el login responde 503 con {@code Retry-After} en lugar de consumir hilos de Tomcat.</p>
+     *
+     * <p>El coste es {@code security.password-hashing.bcrypt.strength} o, si vale 0, el calibrado al
+     * arrancar para {@code security.password-hashing.bcrypt.time-budget}. Los hashes con otro coste
+     * se rehacen tras un login correcto ({@link CustomUserDetailsService#updatePassword}).</p>
+     *
      * @return una instancia de {@link PasswordEncoder} que utiliza BCrypt para cifrar contraseñas.
      */
     @Bean
-    public PasswordEncoder passwordEncoder() {
+    public PasswordEncoder passwordEncoder(
+            ThreadPoolExecutor passwordHashingExecutor,
+            MeterRegistry meterRegistry,
+            @Value("${security.password-hashing.timeout:5s}") Duration timeout,
+            @Value("${security.password-hashing.retry-after:2s}") Duration retryAfter,
+            @Value("${security.password-hashing.bcrypt.strength:0}") int strength,
+            @Value("${security.password-hashing.bcrypt.time-budget:250ms}") Duration timeBudget,
+            @Value("${security.password-hashing.bcrypt.min-strength:10}") int minStrength,
+            @Value("${security.password-hashing.bcrypt.max-strength:14}") int maxStrength) {
         logger.info("Entrando en el método passwordEncoder");
-        PasswordEncoder encoder = new BCryptPasswordEncoder();
+        CalibratedBCryptPasswordEncoder bcrypt = strength > 0
+                ? new CalibratedBCryptPasswordEncoder(strength)
+                : CalibratedBCryptPasswordEncoder.calibrate(timeBudget, minStrength, maxStrength);
+        PasswordEncoder encoder = new BoundedPasswordEncoder(
+                bcrypt, passwordHashingExecutor, timeout, retryAfter, meterRegistry);
         logger.info("Saliendo del método passwordEncoder");
         return encoder;
     }
@@ -1,20 +1,36 @@
 package org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.controllers;
 
+import io.jsonwebtoken.JwtException;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.dtos.AuthRequestDTO;
 import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.dtos.AuthResponseDTO;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.dtos.RefreshRequestDTO;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.dtos.RefreshRotationDTO;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.services.LoginAttemptService;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.services.RefreshTokenService;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.services.RevokedTokenDenylist;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.utils.JwtKeyRing;
 import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.utils.JwtUtil;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.utils.VerifiedToken;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @RestController
@@ -36,6 +52,29 @@ public class AuthenticationController {
     @Autowired
     private JwtUtil jwtUtil;
 
+    /**
+     * Anillo de claves JWT; sus claves públicas se publican en {@code /api/auth/jwks.json}.
+     */
+    @Autowired
+    private JwtKeyRing jwtKeyRing;
+
+    /**
+     * Emisión y rotación de refresh tokens (renovación del JWT sin repetir el login).
+     */
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    /**
+     * Intentos fallidos y bloqueo de cuentas (decisión en memoria, volcado a BD en lote).
+     */
+    @Autowired
+    private LoginAttemptService loginAttemptService;
+
+    /**
+     * JWT revocados antes de su caducidad (logout).
+     */
+    @Autowired
+    private RevokedTokenDenylist revokedTokenDenylist;
 
     /**
      * Autentica al usuario y genera un token JWT si las credenciales son válidas.
@@ -43,26 +82,42 @@ public class AuthenticationController {
      * <p>Flujo:</p>
      * <ol>
      *     <li>Recibe credenciales en el body (JSON) y las valida con {@code @Valid}.</li>
+     *     <li>Rechaza cuentas bloqueadas por intentos fallidos sin llegar a ejecutar BCrypt.</li>
      *     <li>Delegación en {@link AuthenticationManager} para autenticar.</li>
      *     <li>Extrae el nombre de usuario y los roles desde {@link Authentication}.</li>
      *     <li>Genera el JWT incluyendo roles como claim.</li>
-     *     <li>Devuelve el token en un {@link AuthResponseDTO}.</li>
+     *     <li>Emite un refresh token para renovar el JWT sin volver a enviar la contraseña.</li>
+     *     <li>Devuelve ambos tokens en un {@link AuthResponseDTO}.</li>
      * </ol>
      *
      * @param authRequest DTO con {@code username} y {@code password}.
+     * @param request     petición HTTP (IP y User-Agent para auditoría del refresh token).
      * @return {@link ResponseEntity} con {@link AuthResponseDTO} que incluye el token JWT.
      */
     @PostMapping("/authenticate")
     public ResponseEntity<AuthResponseDTO> authenticate(
-            @Valid @RequestBody AuthRequestDTO authRequest) {
+            @Valid @RequestBody AuthRequestDTO authRequest,
+            HttpServletRequest request) {
+
+        // 0) Cuenta bloqueada: se decide en memoria (mismo 401 que unas credenciales inválidas)
+        if (loginAttemptService.isLocked(authRequest.getUsername())) {
+            throw new BadCredentialsException("Cuenta bloqueada");
+        }
 
         // 1) Autenticación (si falla, Spring lanza AuthenticationException y lo gestiona el handler)
-        Authentication authentication = authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(
-                        authRequest.getUsername(),
-                        authRequest.getPassword()
-                )
-        );
+        Authentication authentication;
+        try {
+            authentication = authenticationManager.authenticate(
+                    new UsernamePasswordAuthenticationToken(
+                            authRequest.getUsername(),
+                            authRequest.getPassword()
+                    )
+            );
+        } catch (BadCredentialsException e) {
+            loginAttemptService.loginFailed(authRequest.getUsername());
+            throw e;
+        }
+        loginAttemptService.loginSucceeded(authentication.getName());
 
         // 2) Username autenticado (normalmente el mismo que el enviado en el login)
         String username = authentication.getName();
@@ -75,9 +130,96 @@ public class AuthenticationController {
         // 4) Generación del JWT con subject + roles (claims)
         String token = jwtUtil.generateToken(username, roles);
 
-        // 5) Respuesta OK con token
+        // 5) Refresh token (nueva familia de rotación)
+        String refreshToken = refreshTokenService.issue(
+                username, request.getRemoteAddr(), request.getHeader(HttpHeaders.USER_AGENT));
+
+        // 6) Respuesta OK con tokens
+        return ResponseEntity.ok(
+                new AuthResponseDTO(token, refreshToken, "Authentication successful")
+        );
+    }
+
+    /**
+     * Canjea un refresh token por un nuevo JWT y un nuevo refresh token (rotación).
+     *
+     * <p>No verifica la contraseña: el coste es una búsqueda por hash indexado en lugar de un BCrypt.
+     * Los roles se leen de BD en el canje, así que los cambios de roles se reflejan en el nuevo JWT.
+     * Si se presenta un refresh token ya rotado se revoca toda su familia (401).</p>
+     *
+     * @param refreshRequest DTO con el {@code refreshToken}.
+     * @param request        petición HTTP (IP y User-Agent para auditoría).
+     * @return {@link ResponseEntity} con {@link AuthResponseDTO} con el nuevo JWT y el nuevo refresh token.
+     */
+    @PostMapping("/refresh")
+    public ResponseEntity<AuthResponseDTO> refresh(
+            @Valid @RequestBody RefreshRequestDTO refreshRequest,
+            HttpServletRequest request) {
+
+        // 1) Rotación (si el token no es válido se lanza BadCredentialsException -> 401)
+        RefreshRotationDTO rotation = refreshTokenService.rotate(
+                refreshRequest.getRefreshToken(),
+                request.getRemoteAddr(),
+                request.getHeader(HttpHeaders.USER_AGENT)
+        );
+
+        // 2) Nuevo JWT con los roles actuales
+        String token = jwtUtil.generateToken(rotation.getEmail(), rotation.getRoles());
+
         return ResponseEntity.ok(
-                new AuthResponseDTO(token, "Authentication successful")
+                new AuthResponseDTO(token, rotation.getRefreshToken(), "Token refreshed")
         );
     }
+
+    /**
+     * Cierra la sesión: revoca el JWT de la cabecera {@code Authorization} hasta su caducidad
+     * y, si se envía, la familia del refresh token.
+     *
+     * @param authorization  cabecera {@code Authorization: Bearer <jwt>}.
+     * @param refreshRequest (opcional) DTO con el {@code refreshToken} a revocar.
+     * @return 204 No Content.
+     */
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+            @RequestBody(required = false) RefreshRequestDTO refreshRequest) {
+
+        if (authorization == null || !authorization.startsWith("Bearer ")) {
+            throw new BadCredentialsException("Falta el token");
+        }
+
+        // 1) Solo se revocan tokens válidos (firma y caducidad)
+        VerifiedToken verifiedToken;
+        try {
+            verifiedToken = jwtUtil.verify(authorization.substring(7));
+        } catch (JwtException | IllegalArgumentException e) {
+            throw new BadCredentialsException("Token inválido");
+        }
+
+        revokedTokenDenylist.revoke(verifiedToken.getJti(), verifiedToken.getExpiresAt());
+
+        // 2) Refresh token asociado (opcional)
+        if (refreshRequest != null && refreshRequest.getRefreshToken() != null
+                && !refreshRequest.getRefreshToken().isBlank()) {
+            refreshTokenService.revoke(refreshRequest.getRefreshToken());
+        }
+
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Publica las claves públicas de verificación en formato JWKS (RFC 7517).
+     *
+     * <p>Permite a otros servicios verificar los JWT localmente eligiendo la clave por el
+     * {@code kid} de la cabecera. Durante una rotación se publican la clave nueva y la anterior.
+     * La respuesta es cacheable unos minutos (menos que la vida de un token).</p>
+     *
+     * @return {@link ResponseEntity} con {@code {"keys": [...]}}.
+     */
+    @GetMapping("/jwks.json")
+    public ResponseEntity<Map<String, Object>> jwks() {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(Duration.ofMinutes(5)).cachePublic())
+                .body(Map.of("keys", jwtKeyRing.publicJwks()));
+    }
 }
@@ -6,7 +6,13 @@ import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.dtos.*;
 import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.exceptions.DuplicateResourceException;
 import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.exceptions.ResourceNotFoundException;
 import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.services.ProvinceService;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.services.ReferenceDataBulkImporter;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.services.ReferenceDataRegistry;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.services.ReferenceDataResponseCache;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.services.ReferenceDataSnapshot;
 import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.services.RegionService;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.services.TableExporter;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.utils.TabularFormat;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -15,14 +21,21 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import java.io.InputStream;
+import java.util.List;
 import java.util.Locale;
 
 /**
@@ -35,22 +48,103 @@ import java.util.Locale;
 @RequiredArgsConstructor
 public class ProvinceController {
 
+    /** Cacheable en el cliente, pero revalidando siempre con el ETag. */
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
     private final ProvinceService provinceService;
+    private final ReferenceDataRegistry referenceDataRegistry;
+    private final ReferenceDataResponseCache referenceDataResponseCache;
+    private final ReferenceDataBulkImporter referenceDataBulkImporter;
+    private final TableExporter tableExporter;
+
+    // LISTAR: JSON (y gzip) ya serializado por versión de datos; If-None-Match vigente -> 304
+    @GetMapping(params = {"withTotal!=false", "!cursor", "!ids"})
+    public ResponseEntity<byte[]> list(
+            @PageableDefault(size = 10, sort = "name")
+            Pageable pageable,
+            WebRequest webRequest) {
+
+        return referenceDataResponseCache.provinces(pageable, webRequest, REVALIDATE);
+    }
 
-    // LISTAR
-    @GetMapping
-    public ResponseEntity<Page<ProvinceDTO>> list(
+    // LISTAR SIN TOTAL (?withTotal=false): contenido + hasNext, para scroll infinito
+    @GetMapping(params = {"withTotal=false", "!cursor", "!ids"})
+    public ResponseEntity<byte[]> listWithoutTotal(
+            @PageableDefault(size = 10, sort = "name")
+            Pageable pageable,
+            WebRequest webRequest) {
+
+        return referenceDataResponseCache.provincesSlice(pageable, webRequest, REVALIDATE);
+    }
+
+    // EXPORTAR (?format=ndjson|csv): streaming desde un cursor de BD; el CSV se reimporta con /bulk
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(
+            @RequestParam(defaultValue = "ndjson") String format) {
+
+        TabularFormat tabularFormat = TabularFormat.of(format, "province");
+        return ResponseEntity.ok()
+                .contentType(tabularFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"provinces." + tabularFormat.getExtension() + "\"")
+                .body(tableExporter.provinces(tabularFormat));
+    }
+
+    // AUTOCOMPLETAR (?q=leon&limit=10): por prefijo de palabra, sin tildes ni mayúsculas
+    @GetMapping("/suggest")
+    public ResponseEntity<List<ProvinceDTO>> suggest(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "10") int limit) {
+
+        return ResponseEntity.ok(provinceService.suggest(q, limit));
+    }
+
+    // RESOLVER CÓDIGO POSTAL (?postalCode=41001): provincia y región por las dos primeras cifras
+    @GetMapping(value = "/resolve", params = "postalCode")
+    public ResponseEntity<PostalCodeResolutionDTO> resolve(@RequestParam String postalCode) {
+
+        return ResponseEntity.ok(provinceService.resolve(postalCode));
+    }
+
+    // RESOLVER EN LOTE (array JSON de códigos postales, leído en streaming; respuesta en el mismo orden)
+    @PostMapping(value = "/resolve", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<PostalCodeResolutionDTO>> resolveAll(InputStream body) {
+
+        return ResponseEntity.ok(provinceService.resolveAll(body));
+    }
+
+    // OBTENER VARIOS POR ID (?ids=1,5,9): en el orden pedido; los que no existen, en missingIds
+    @GetMapping(params = {"ids", "!cursor", "!withTotal"})
+    public ResponseEntity<ItemsByIdDTO<ProvinceDTO>> getByIds(@RequestParam List<Long> ids) {
+
+        return ResponseEntity.ok(provinceService.findByIds(ids));
+    }
+
+    // LISTAR POR CURSOR (?cursor= vacío para la primera página, después el nextCursor recibido)
+    @GetMapping(params = {"cursor", "!withTotal", "!ids"})
+    public ResponseEntity<CursorPageDTO<ProvinceDTO>> scroll(
+            @RequestParam String cursor,
             @PageableDefault(size = 10, sort = "name")
             Pageable pageable) {
 
-        return ResponseEntity.ok(provinceService.list(pageable));
+        return ResponseEntity.ok(provinceService.scroll(cursor, pageable));
     }
 
-    // OBTENER POR ID
+    // OBTENER POR ID: primero si existe (404), después If-None-Match (304)
     @GetMapping("/{id}")
-    public ResponseEntity<ProvinceDTO> getById(@PathVariable Long id) {
+    public ResponseEntity<ProvinceDTO> getById(@PathVariable Long id, WebRequest webRequest) {
+
+        ReferenceDataSnapshot snapshot = referenceDataRegistry.current();
+        if (!snapshot.containsProvince(id)) {
+            throw new ResourceNotFoundException("province", "id", id);
+        }
+
+        String eTag = snapshot.getETag();
+        if (webRequest.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(REVALIDATE).eTag(eTag).build();
+        }
 
-        return ResponseEntity.ok(provinceService.getById(id));
+        return ResponseEntity.ok().cacheControl(REVALIDATE).eTag(eTag).body(provinceService.getById(id));
     }
 
     // CREAR
@@ -62,6 +156,15 @@ public class ProvinceController {
         return ResponseEntity.status(HttpStatus.CREATED).body(created);
     }
 
+    // IMPORTAR EN BLOQUE (NDJSON o CSV con code,name,regionCode; informe de filas rechazadas)
+    @PostMapping(value = "/bulk", consumes = {TabularFormat.NDJSON_VALUE, TabularFormat.CSV_VALUE})
+    public ResponseEntity<BulkImportResultDTO> bulkImport(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            InputStream body) {
+
+        return ResponseEntity.ok(referenceDataBulkImporter.importProvinces(body, contentType));
+    }
+
     // ACTUALIZAR
     @PutMapping("/{id}")
     public ResponseEntity<ProvinceDTO> update(
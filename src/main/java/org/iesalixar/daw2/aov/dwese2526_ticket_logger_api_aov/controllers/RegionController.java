@@ -1,14 +1,22 @@
 package org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.controllers;
 
 import jakarta.validation.Valid;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.dtos.BulkImportResultDTO;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.dtos.CursorPageDTO;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.dtos.ItemsByIdDTO;
 import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.dtos.RegionCreateDTO;
 import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.dtos.RegionDTO;
 import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.dtos.RegionDetailDTO;
 import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.dtos.RegionUpdateDTO;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.dtos.SliceDTO;
 import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.exceptions.DuplicateResourceException;
 import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.exceptions.ResourceNotFoundException;
 import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.repositories.RegionRepository;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.services.ReferenceDataBulkImporter;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.services.ReferenceDataResponseCache;
 import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.services.RegionService;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.services.TableExporter;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.utils.TabularFormat;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -25,13 +33,20 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import org.springdoc.core.annotations.ParameterObject;
 
 
+import java.io.InputStream;
 import java.net.URI;
+import java.util.List;
 import java.util.Locale;
 
 @RestController
@@ -40,6 +55,12 @@ public class RegionController {
 
     private static final Logger logger = LoggerFactory.getLogger(RegionController.class);
 
+    /**
+     * Las lecturas se pueden guardar en el cliente pero se revalidan siempre con su ETag
+     * (sustituye al {@code no-store} que añade Spring Security por defecto).
+     */
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
     @Autowired
     private RegionRepository regionRepository;
 
@@ -49,6 +70,15 @@ public class RegionController {
     @Autowired
     private RegionService regionService;
 
+    @Autowired
+    private ReferenceDataResponseCache referenceDataResponseCache;
+
+    @Autowired
+    private ReferenceDataBulkImporter referenceDataBulkImporter;
+
+    @Autowired
+    private TableExporter tableExporter;
+
     // =========================
     // LISTAR REGIONES
     // =========================
@@ -66,23 +96,162 @@ public class RegionController {
                             schema = @Schema(implementation = Page.class)
                     )
             ),
+            @ApiResponse(responseCode = "304", description = "Sin cambios desde el ETag indicado en If-None-Match"),
             @ApiResponse(responseCode = "500", description = "Error interno del servidor")
     })
 
-    @GetMapping
-    public ResponseEntity<Page<RegionDTO>> listRegions(
+    @GetMapping(params = {"withTotal!=false", "!cursor", "!ids"})
+    public ResponseEntity<byte[]> listRegions(
             @ParameterObject
             @PageableDefault(size = 10, sort = "name", direction = Sort.Direction.ASC)
-            Pageable pageable) {
+            Pageable pageable,
+            WebRequest webRequest) {
 
         logger.info("Listando regiones page={}, size={}, sort={}",
                 pageable.getPageNumber(),
                 pageable.getPageSize(),
                 pageable.getSort());
 
-        Page<RegionDTO> page = regionService.list(pageable);
+        // Mismo JSON que regionService.list(pageable), serializado una vez por versión de datos
+        return referenceDataResponseCache.regions(pageable, webRequest, REVALIDATE);
+    }
+
+    // =========================
+    // LISTAR REGIONES SIN TOTAL
+    // =========================
+
+    @Operation(
+            summary = "Listar regiones sin total",
+            description = "Con withTotal=false devuelve el contenido y hasNext, sin totalElements ni totalPages "
+                    + "(pensado para scroll infinito)."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Página de regiones",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = SliceDTO.class)
+                    )
+            ),
+            @ApiResponse(responseCode = "304", description = "Sin cambios desde el ETag indicado en If-None-Match"),
+            @ApiResponse(responseCode = "500", description = "Error interno del servidor")
+    })
+    @GetMapping(params = {"withTotal=false", "!cursor", "!ids"})
+    public ResponseEntity<byte[]> listRegionsWithoutTotal(
+            @ParameterObject
+            @PageableDefault(size = 10, sort = "name", direction = Sort.Direction.ASC)
+            Pageable pageable,
+            WebRequest webRequest) {
+
+        return referenceDataResponseCache.regionsSlice(pageable, webRequest, REVALIDATE);
+    }
+
+    // =========================
+    // EXPORTAR REGIONES
+    // =========================
+
+    @Operation(
+            summary = "Exportar regiones",
+            description = "Descarga todas las regiones en NDJSON o CSV (format=ndjson|csv). Se envía en "
+                    + "streaming mientras se leen de la BD; el CSV se puede volver a importar con /bulk."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Fichero con todas las regiones"),
+            @ApiResponse(responseCode = "400", description = "Formato no soportado"),
+            @ApiResponse(responseCode = "500", description = "Error interno del servidor")
+    })
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportRegions(
+            @RequestParam(defaultValue = "ndjson") String format) {
+
+        TabularFormat tabularFormat = TabularFormat.of(format, "region");
+        return ResponseEntity.ok()
+                .contentType(tabularFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"regions." + tabularFormat.getExtension() + "\"")
+                .body(tableExporter.regions(tabularFormat));
+    }
+
+    // =========================
+    // AUTOCOMPLETAR REGIONES
+    // =========================
+
+    @Operation(
+            summary = "Autocompletar regiones",
+            description = "Regiones con alguna palabra del nombre que empieza por q, sin distinguir mayúsculas "
+                    + "ni tildes (\"leon\" encuentra \"Castilla y León\"). Primero las que coinciden al "
+                    + "principio del nombre y las de nombre más corto."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Regiones encontradas (como mucho limit)"),
+            @ApiResponse(responseCode = "400", description = "limit fuera de rango"),
+            @ApiResponse(responseCode = "500", description = "Error interno del servidor")
+    })
+    @GetMapping("/suggest")
+    public ResponseEntity<List<RegionDTO>> suggestRegions(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "10") int limit) {
+
+        return ResponseEntity.ok(regionService.suggest(q, limit));
+    }
+
+    // =========================
+    // OBTENER VARIAS REGIONES POR ID
+    // =========================
+
+    @Operation(
+            summary = "Obtener varias regiones por ID",
+            description = "Devuelve en una sola llamada las regiones de ids=1,5,9, en el orden pedido (cada id "
+                    + "una vez). Los ids que no existen se indican en missingIds en lugar de dar 404."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Regiones encontradas e ids inexistentes",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = ItemsByIdDTO.class)
+                    )
+            ),
+            @ApiResponse(responseCode = "400", description = "Ids no numéricos, vacíos o demasiados"),
+            @ApiResponse(responseCode = "500", description = "Error interno del servidor")
+    })
+    @GetMapping(params = {"ids", "!cursor", "!withTotal"})
+    public ResponseEntity<ItemsByIdDTO<RegionDTO>> getRegionsByIds(@RequestParam List<Long> ids) {
 
-        return ResponseEntity.ok(page);
+        return ResponseEntity.ok(regionService.findByIds(ids));
+    }
+
+    // =========================
+    // LISTAR REGIONES POR CURSOR
+    // =========================
+
+    @Operation(
+            summary = "Listar regiones por cursor",
+            description = "Paginación por clave: enviar cursor vacío para la primera página y después el "
+                    + "nextCursor recibido. Admite un único criterio de orden (id, code o name)."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Página de regiones",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = CursorPageDTO.class)
+                    )
+            ),
+            @ApiResponse(responseCode = "400", description = "Cursor u orden no válidos"),
+            @ApiResponse(responseCode = "500", description = "Error interno del servidor")
+    })
+    @GetMapping(params = {"cursor", "!withTotal", "!ids"})
+    public ResponseEntity<CursorPageDTO<RegionDTO>> scrollRegions(
+            @RequestParam String cursor,
+            @ParameterObject
+            @PageableDefault(size = 10, sort = "name", direction = Sort.Direction.ASC)
+            Pageable pageable) {
+
+        return ResponseEntity.ok(regionService.scroll(cursor, pageable));
     }
 
 
@@ -121,6 +290,37 @@ public class RegionController {
         return ResponseEntity.created(location).body(created);
     }
 
+    // =========================
+    // IMPORTAR REGIONES
+    // =========================
+
+    @Operation(
+            summary = "Importar regiones en bloque",
+            description = "Alta masiva desde NDJSON (un objeto {\"code\",\"name\"} por línea) o CSV con "
+                    + "cabecera code,name. Se procesa en streaming y por bloques; las filas inválidas o "
+                    + "duplicadas no detienen la importación y se devuelven en el informe."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Informe de la importación",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = BulkImportResultDTO.class)
+                    )
+            ),
+            @ApiResponse(responseCode = "400", description = "Cabecera CSV no válida"),
+            @ApiResponse(responseCode = "415", description = "Formato no soportado"),
+            @ApiResponse(responseCode = "500", description = "Error interno del servidor")
+    })
+    @PostMapping(value = "/bulk", consumes = {TabularFormat.NDJSON_VALUE, TabularFormat.CSV_VALUE})
+    public ResponseEntity<BulkImportResultDTO> bulkImportRegions(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            InputStream body) {
+
+        return ResponseEntity.ok(referenceDataBulkImporter.importRegions(body, contentType));
+    }
+
     // =========================
     // ACTUALIZAR REGIÓN
     // =========================
@@ -174,17 +374,17 @@ public class RegionController {
                             schema = @Schema(implementation = RegionDetailDTO.class)
                     )
             ),
+            @ApiResponse(responseCode = "304", description = "Sin cambios desde el ETag indicado en If-None-Match"),
             @ApiResponse(responseCode = "404", description = "Región no encontrada"),
             @ApiResponse(responseCode = "500", description = "Error interno del servidor")
     })
     @GetMapping("/{id}")
-    public ResponseEntity<RegionDetailDTO> getRegionById(@PathVariable Long id) {
+    public ResponseEntity<byte[]> getRegionById(@PathVariable Long id, WebRequest webRequest) {
 
         logger.info("Mostrando detalle de la región con ID {}", id);
 
-        RegionDetailDTO regionDTO = regionService.getDetail(id);
-
-        return ResponseEntity.ok(regionDTO);
+        // Mismo JSON que regionService.getDetail(id), serializado una vez por versión de datos
+        return referenceDataResponseCache.regionDetail(id, webRequest, REVALIDATE);
     }
 
     // =========================
@@ -8,17 +8,23 @@ import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.exceptions.Resourc
 import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.mappers.UserMapper;
 import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.repositories.RoleRepository;
 import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.repositories.UserRepository;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.services.TableExporter;
 import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.services.UserService;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.utils.TabularFormat;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.MessageSource;
 import org.springframework.data.domain.*;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import java.util.HashSet;
@@ -38,12 +44,15 @@ public class UserController {
     @Autowired
     private RoleRepository roleRepository;
 
+    @Autowired
+    private TableExporter tableExporter;
+
     @Autowired
     private MessageSource messageSource;
 
 
 
-    @GetMapping
+    @GetMapping(params = {"withTotal!=false", "!cursor"})
     public String listUsers(
             @PageableDefault(size = 10, sort = "email", direction = Sort.Direction.ASC)
             Pageable pageable,
@@ -64,6 +73,51 @@ public class UserController {
         return "views/users/user-list";
     }
 
+    /**
+     * Listado de usuarios sin total en JSON ({@code ?withTotal=false}): contenido y
+     * {@code hasNext}, sin {@code COUNT}.
+     */
+    @GetMapping(params = {"withTotal=false", "!cursor"})
+    @ResponseBody
+    public SliceDTO<UserDTO> sliceUsers(
+            @PageableDefault(size = 10, sort = "email", direction = Sort.Direction.ASC)
+            Pageable pageable) {
+
+        return userService.slice(pageable);
+    }
+
+    /**
+     * Exportación de todos los usuarios con sus roles ({@code ?format=ndjson|csv}), en streaming
+     * desde un cursor de BD. Sin hash de contraseña; solo para administradores.
+     */
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportUsers(
+            @RequestParam(defaultValue = "ndjson") String format) {
+
+        TabularFormat tabularFormat = TabularFormat.of(format, "user");
+        return ResponseEntity.ok()
+                .contentType(tabularFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"users." + tabularFormat.getExtension() + "\"")
+                .body(tableExporter.users(tabularFormat));
+    }
+
+    /**
+     * Listado de usuarios por cursor en JSON (para scroll infinito / integraciones):
+     * {@code ?cursor=} vacío para la primera página y después el {@code nextCursor} recibido.
+     * Orden admitido: {@code email} o {@code id}.
+     */
+    @GetMapping(params = {"cursor", "!withTotal"})
+    @ResponseBody
+    public CursorPageDTO<UserDTO> scrollUsers(
+            @RequestParam String cursor,
+            @PageableDefault(size = 10, sort = "email", direction = Sort.Direction.ASC)
+            Pageable pageable) {
+
+        return userService.scroll(cursor, pageable);
+    }
+
 
 
     @GetMapping("/new")
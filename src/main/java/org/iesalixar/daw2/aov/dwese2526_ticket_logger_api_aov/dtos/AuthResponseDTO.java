@@ -9,5 +9,6 @@ import lombok.Data;
 public class AuthResponseDTO {
 
     private String token;
+    private String refreshToken;
     private String message;
 }
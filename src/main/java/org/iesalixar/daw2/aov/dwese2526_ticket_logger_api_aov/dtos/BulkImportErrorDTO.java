@@ -0,0 +1,22 @@
+package org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Fila rechazada en una importación masiva.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkImportErrorDTO {
+
+    /** Línea de la entrada (empieza en 1; en CSV la cabecera es la línea 1). */
+    private long line;
+
+    /** Código de la fila, si se pudo leer. */
+    private String code;
+
+    private String message;
+}
@@ -0,0 +1,31 @@
+package org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resultado de una importación masiva: recuento de filas y detalle de las rechazadas.
+ *
+ * <p>El detalle está acotado ({@code reference-data.import.max-errors}); si hay más
+ * rechazos se siguen contando en {@code rejected} pero no se detallan ({@code errorsTruncated}).</p>
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkImportResultDTO {
+
+    /** Filas leídas (sin contar cabecera ni líneas en blanco). */
+    private long rows;
+
+    private long inserted;
+
+    private long rejected;
+
+    private List<BulkImportErrorDTO> errors = new ArrayList<>();
+
+    private boolean errorsTruncated;
+}
@@ -0,0 +1,29 @@
+package org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Página de un listado por cursor (keyset): sin número de página ni total.
+ *
+ * <p>Para pedir la siguiente se envía {@code nextCursor} en el parámetro {@code cursor};
+ * es {@code null} cuando no quedan más elementos.</p>
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageDTO<T> {
+
+    private List<T> content;
+
+    /** Tamaño de página solicitado. */
+    private int size;
+
+    private boolean hasNext;
+
+    /** Cursor opaco de la página siguiente ({@code null} si es la última). */
+    private String nextCursor;
+}
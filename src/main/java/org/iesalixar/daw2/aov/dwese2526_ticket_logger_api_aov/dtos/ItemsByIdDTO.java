@@ -0,0 +1,24 @@
+package org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Resultado de una consulta por varios ids ({@code ?ids=1,5,9}).
+ *
+ * <p>{@code content} trae los elementos encontrados en el orden en que se pidieron (cada id una
+ * sola vez) y {@code missingIds} los ids que no existen, también en ese orden: una petición con
+ * ids inexistentes no falla con 404.</p>
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ItemsByIdDTO<T> {
+
+    private List<T> content;
+
+    private List<Long> missingIds;
+}
@@ -0,0 +1,34 @@
+package org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Provincia y región de un código postal (sus dos primeras cifras son el código de provincia).
+ *
+ * <p>Si el código no tiene 5 cifras o ninguna provincia tiene ese prefijo, {@code resolved} es
+ * {@code false} y el resto de campos van a {@code null}.</p>
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PostalCodeResolutionDTO {
+
+    /** Código postal tal como se recibió. */
+    private String postalCode;
+
+    private boolean resolved;
+
+    private Long provinceId;
+    private String provinceCode;
+    private String provinceName;
+
+    private Long regionId;
+    private String regionCode;
+    private String regionName;
+
+    public static PostalCodeResolutionDTO unresolved(String postalCode) {
+        return new PostalCodeResolutionDTO(postalCode, false, null, null, null, null, null, null);
+    }
+}
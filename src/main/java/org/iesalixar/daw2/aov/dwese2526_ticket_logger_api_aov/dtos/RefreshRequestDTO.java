@@ -0,0 +1,11 @@
+package org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.dtos;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.Getter;
+
+@Getter
+public class RefreshRequestDTO {
+
+    @NotBlank(message = "{msg.auth.refreshToken.notblank}")
+    private String refreshToken;
+}
@@ -0,0 +1,19 @@
+package org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Resultado de rotar un refresh token: usuario y roles actuales (para el nuevo access token)
+ * y el nuevo refresh token en claro (solo se devuelve al cliente, nunca se guarda).
+ */
+@Data
+@AllArgsConstructor
+public class RefreshRotationDTO {
+
+    private String email;
+    private List<String> roles;
+    private String refreshToken;
+}
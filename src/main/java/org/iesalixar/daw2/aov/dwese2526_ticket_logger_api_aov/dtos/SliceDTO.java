@@ -0,0 +1,34 @@
+package org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
+
+/**
+ * Página de un listado sin total ({@code ?withTotal=false}): solo indica si hay más elementos.
+ *
+ * <p>Para clientes de scroll infinito que no muestran el número de páginas: se obtiene
+ * leyendo una fila de más, sin {@code SELECT COUNT(*)}.</p>
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SliceDTO<T> {
+
+    private List<T> content;
+
+    /** Número de página (empieza en 0). */
+    private int number;
+
+    /** Tamaño de página solicitado. */
+    private int size;
+
+    private boolean hasNext;
+
+    public static <T> SliceDTO<T> of(Slice<T> slice) {
+        return new SliceDTO<>(slice.getContent(), slice.getNumber(), slice.getSize(), slice.hasNext());
+    }
+}
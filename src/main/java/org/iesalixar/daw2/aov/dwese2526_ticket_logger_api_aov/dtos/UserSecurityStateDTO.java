@@ -0,0 +1,26 @@
+package org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Proyección mínima de un usuario con los flags que afectan a la autenticación.
+ * Se carga con una consulta de constructor (sin roles ni perfil).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserSecurityStateDTO {
+
+    private String email;
+
+    private boolean active;
+
+    private boolean accountNonLocked;
+
+    /** Último cambio de seguridad ({@code null} si nunca ha habido uno). */
+    private LocalDateTime securityChangedAt;
+}
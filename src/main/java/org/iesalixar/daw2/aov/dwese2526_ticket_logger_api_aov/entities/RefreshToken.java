@@ -0,0 +1,98 @@
+package org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "refresh_tokens")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RefreshToken {
+
+
+    /** Identificador único del refresh token (PK autoincremental). */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+
+    /** Usuario propietario del token. */
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+
+    /** Hash del token (SHA-256 en hex); el token en claro solo lo conoce el cliente. */
+    @Column(name = "token_hash", nullable = false, unique = true, length = 64)
+    private String tokenHash; // SHA-256 hex
+
+
+    /** Familia de rotación: comparten valor todos los tokens encadenados desde el mismo login. */
+    @Column(name = "family_id", nullable = false, length = 36)
+    private String familyId;
+
+
+    /** Fecha y hora límite hasta la que el token es válido. */
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+
+    /** Fecha y hora en la que el token se rotó (canjeó por otro); si es null, aún no se ha usado. */
+    @Column(name = "used_at")
+    private LocalDateTime usedAt;
+
+
+    /** Fecha y hora en la que se revocó la familia del token; si es null, no está revocado. */
+    @Column(name = "revoked_at")
+    private LocalDateTime revokedAt;
+
+
+    /** Fecha y hora de creación del token para auditoría y trazabilidad. */
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+
+    /** IP desde la que se obtuvo el token (auditoría). */
+    @Column(name = "request_ip", length = 45)
+    private String requestIp;
+
+
+    /** User-Agent del cliente que obtuvo el token (auditoría, no es un dato confiable). */
+    @Column(name = "user_agent", length = 255)
+    private String userAgent;
+
+
+    /**
+     * Indica si el refresh token ha caducado.
+     *
+     * @return {@code true} si la fecha/hora actual es posterior a {@code expiresAt}.
+     */
+    public boolean isExpired() {
+        return LocalDateTime.now().isAfter(expiresAt);
+    }
+
+
+    /**
+     * Indica si el token ya se rotó. Volver a presentarlo es una reutilización.
+     *
+     * @return {@code true} si {@code usedAt} no es {@code null}.
+     */
+    public boolean isUsed() {
+        return usedAt != null;
+    }
+
+
+    /**
+     * Indica si la familia del token fue revocada.
+     *
+     * @return {@code true} si {@code revokedAt} no es {@code null}.
+     */
+    public boolean isRevoked() {
+        return revokedAt != null;
+    }
+}
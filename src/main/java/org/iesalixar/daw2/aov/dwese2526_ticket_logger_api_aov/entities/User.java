@@ -60,6 +60,10 @@ public class User {
     @Column(name = "must_change_password", nullable = false)
     private boolean mustChangePassword;
 
+    /** DATETIME NULL (último cambio que invalida los JWT emitidos antes) */
+    @Column(name = "security_changed_at")
+    private LocalDateTime securityChangedAt;
+
     /** Relación 1:1 con UserProfile */
     @OneToOne(mappedBy = "user", fetch = FetchType.LAZY)
     private UserProfile profile;
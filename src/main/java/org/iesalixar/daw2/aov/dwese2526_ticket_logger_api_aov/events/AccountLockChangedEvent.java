@@ -0,0 +1,42 @@
+package org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.events;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+/**
+ * Evento publicado por {@code LoginAttemptService} cuando bloquea una cuenta por intentos
+ * fallidos o cuando vence un bloqueo temporal.
+ *
+ * <p>Se publica después de guardar el cambio en BD. Los componentes con estado en memoria
+ * sobre usuarios ({@code UserSecurityStateRegistry}, la caché de {@code CustomUserDetailsService})
+ * lo escuchan igual que {@link UserChangedEvent}, que solo cubre los cambios de un administrador.</p>
+ */
+@Value
+public class AccountLockChangedEvent {
+
+    /** Bloqueo sin fecha de fin (lo levanta un administrador). */
+    public static final long LOCKED_FOREVER = Long.MAX_VALUE;
+
+    /** Email del usuario, tal como está en BD. */
+    String email;
+
+    /** Epoch millis de fin del bloqueo, {@link #LOCKED_FOREVER} si es indefinido o 0 si se ha desbloqueado. */
+    long lockedUntil;
+
+    /** {@code security_changed_at} guardado con el bloqueo; {@code null} al desbloquear (no cambia). */
+    LocalDateTime securityChangedAt;
+
+    public static AccountLockChangedEvent locked(String email, long lockedUntil, LocalDateTime securityChangedAt) {
+        return new AccountLockChangedEvent(email, lockedUntil, securityChangedAt);
+    }
+
+    public static AccountLockChangedEvent unlocked(String email) {
+        return new AccountLockChangedEvent(email, 0L, null);
+    }
+
+    /** Indica si el evento corresponde a un bloqueo (y no a su vencimiento). */
+    public boolean isLocked() {
+        return lockedUntil != 0L;
+    }
+}
@@ -0,0 +1,20 @@
+package org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.events;
+
+import lombok.Value;
+
+/**
+ * Evento publicado por {@code RegionServiceImpl} y {@code ProvinceServiceImpl} cuando se crea,
+ * modifica o elimina una región o una provincia.
+ *
+ * <p>{@code ReferenceDataRegistry} lo escucha tras el commit para reconstruir la instantánea
+ * en memoria de regiones y provincias.</p>
+ */
+@Value
+public class ReferenceDataChangedEvent {
+
+    /** Recurso modificado: {@code "region"} o {@code "province"}. */
+    String resource;
+
+    /** Identificador del registro modificado. */
+    Long id;
+}
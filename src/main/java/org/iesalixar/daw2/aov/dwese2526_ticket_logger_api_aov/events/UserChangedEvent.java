@@ -0,0 +1,51 @@
+package org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.events;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+/**
+ * Evento publicado por {@code UserServiceImpl} cuando se crea, modifica o elimina un usuario.
+ *
+ * <p>Los componentes que guardan estado en memoria sobre usuarios (versiones de seguridad,
+ * cachés...) lo escuchan tras el commit de la transacción para refrescarse.</p>
+ */
+@Value
+public class UserChangedEvent {
+
+    /** Email antes del cambio ({@code null} en altas). */
+    String previousEmail;
+
+    /** Email después del cambio ({@code null} en bajas). */
+    String email;
+
+    /** Flag {@code active} tras el cambio. */
+    boolean active;
+
+    /** Flag {@code account_non_locked} tras el cambio. */
+    boolean accountNonLocked;
+
+    /**
+     * {@code security_changed_at} tras el cambio: solo avanza si cambian email, roles,
+     * {@code active} o {@code account_non_locked} ({@code null} si nunca ha cambiado).
+     */
+    LocalDateTime securityChangedAt;
+
+    public static UserChangedEvent created(String email, boolean active, boolean accountNonLocked) {
+        return new UserChangedEvent(null, email, active, accountNonLocked, null);
+    }
+
+    public static UserChangedEvent updated(String previousEmail, String email, boolean active,
+                                           boolean accountNonLocked, LocalDateTime securityChangedAt) {
+        return new UserChangedEvent(previousEmail, email, active, accountNonLocked, securityChangedAt);
+    }
+
+    public static UserChangedEvent deleted(String email) {
+        return new UserChangedEvent(email, null, false, false, null);
+    }
+
+    /** Indica si el evento corresponde a una baja. */
+    public boolean isDeleted() {
+        return email == null;
+    }
+}
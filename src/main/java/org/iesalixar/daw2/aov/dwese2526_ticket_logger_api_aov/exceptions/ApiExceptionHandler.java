@@ -2,6 +2,7 @@ package org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.exceptions;
 
 import jakarta.servlet.http.HttpServletRequest;
 import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.dtos.ApiErrorDTO;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
@@ -10,8 +11,10 @@ import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.web.bind.UnsatisfiedServletRequestParameterException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 
 import java.util.LinkedHashMap;
 import java.util.Map;
@@ -83,6 +86,61 @@ public class ApiExceptionHandler {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(body);
     }
 
+    /**
+     * Parámetro de petición no válido (cursor, orden...) -> 400 Bad Request.
+     */
+    @ExceptionHandler(InvalidRequestParameterException.class)
+    public ResponseEntity<ApiErrorDTO> handleInvalidParameter(InvalidRequestParameterException ex,
+                                                              HttpServletRequest req) {
+
+        ApiErrorDTO body = ApiErrorDTO.withContext(
+                HttpStatus.BAD_REQUEST.value(),
+                HttpStatus.BAD_REQUEST.getReasonPhrase(),
+                ex.getMessage(),
+                req.getRequestURI(),
+                ex.getResource(),
+                ex.getField(),
+                ex.getValue()
+        );
+
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(body);
+    }
+
+    /**
+     * Parámetro de ruta o de consulta con un tipo incompatible (p. ej. {@code ?ids=1,a}) -> 400 Bad Request.
+     */
+    @ExceptionHandler(MethodArgumentTypeMismatchException.class)
+    public ResponseEntity<ApiErrorDTO> handleTypeMismatch(MethodArgumentTypeMismatchException ex,
+                                                          HttpServletRequest req) {
+
+        ApiErrorDTO body = ApiErrorDTO.basic(
+                HttpStatus.BAD_REQUEST.value(),
+                HttpStatus.BAD_REQUEST.getReasonPhrase(),
+                "Invalid value for parameter " + ex.getName() + ": " + ex.getValue(),
+                req.getRequestURI()
+        );
+
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(body);
+    }
+
+    /**
+     * Combinación de parámetros que ningún endpoint admite (p. ej. {@code ?cursor=&withTotal=false}
+     * o {@code ?ids=1&cursor=}: cada modo de listado excluye a los demás) -> 400 Bad Request.
+     */
+    @ExceptionHandler(UnsatisfiedServletRequestParameterException.class)
+    public ResponseEntity<ApiErrorDTO> handleUnsatisfiedParameters(UnsatisfiedServletRequestParameterException ex,
+                                                                   HttpServletRequest req) {
+
+        ApiErrorDTO body = ApiErrorDTO.basic(
+                HttpStatus.BAD_REQUEST.value(),
+                HttpStatus.BAD_REQUEST.getReasonPhrase(),
+                "Unsupported combination of request parameters: " + String.join(", ", ex.getActualParams().keySet()),
+                req.getRequestURI()
+        );
+
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(body);
+    }
+
     /**
      * Errores de validación de @Valid -> 400 Bad Request con errores por campo.
      */
@@ -169,6 +227,25 @@ public class ApiExceptionHandler {
         return ResponseEntity.status(HttpStatus.FORBIDDEN).body(body);
     }
 
+    /**
+     * Recurso saturado (p.ej. pool de hashing de contraseñas lleno) -> 503 Service Unavailable + Retry-After.
+     */
+    @ExceptionHandler(ServiceOverloadedException.class)
+    public ResponseEntity<ApiErrorDTO> handleOverloaded(ServiceOverloadedException ex,
+                                                        HttpServletRequest req) {
+
+        ApiErrorDTO body = ApiErrorDTO.basic(
+                HttpStatus.SERVICE_UNAVAILABLE.value(),
+                HttpStatus.SERVICE_UNAVAILABLE.getReasonPhrase(),
+                "Servicio saturado, inténtalo de nuevo más tarde",
+                req.getRequestURI()
+        );
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(body);
+    }
+
     /**
      * Cualquier error no controlado -> 500 Internal Server Error.
      */
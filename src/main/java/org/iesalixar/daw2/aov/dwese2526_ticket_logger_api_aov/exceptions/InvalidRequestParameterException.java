@@ -0,0 +1,54 @@
+package org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.exceptions;
+
+/**
+ * Excepción para parámetros de petición con formato o valor no admitido
+ * (por ejemplo, un cursor de paginación manipulado o un orden no soportado).
+ *
+ * Se traduce en un 400 Bad Request con el contexto recurso/campo/valor.
+ */
+public class InvalidRequestParameterException extends RuntimeException {
+
+    /**
+     * Recurso afectado (por ejemplo: "region", "province", "user").
+     */
+    private final String resource;
+
+    /**
+     * Parámetro de la petición (por ejemplo: "cursor", "sort").
+     */
+    private final String field;
+
+    /**
+     * Valor recibido. Puede ser {@code null} si no aplica.
+     */
+    private final Object value;
+
+    /**
+     * Construye la excepción indicando el contexto y un detalle legible.
+     *
+     * @param resource nombre del recurso (ej. {@code "province"}).
+     * @param field    parámetro de la petición (ej. {@code "cursor"}).
+     * @param value    valor recibido.
+     * @param detail   detalle adicional (ej. {@code "Malformed cursor"}).
+     */
+    public InvalidRequestParameterException(String resource, String field, Object value, String detail) {
+        super("Invalid " + field + " for " + resource + " (" + field + "=" + value + "): " + detail);
+        this.resource = resource;
+        this.field = field;
+        this.value = value;
+    }
+
+    // ===== Getters requeridos por ApiExceptionHandler =====
+
+    public String getResource() {
+        return resource;
+    }
+
+    public String getField() {
+        return field;
+    }
+
+    public Object getValue() {
+        return value;
+    }
+}
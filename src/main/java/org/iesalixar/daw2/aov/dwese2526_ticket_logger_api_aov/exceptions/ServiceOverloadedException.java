@@ -0,0 +1,42 @@
+package org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.exceptions;
+
+/**
+ * Excepción que indica que un recurso limitado (por ejemplo, el pool de hashing de contraseñas)
+ * está saturado y la petición se rechaza sin esperar.
+ *
+ * Se traduce en un 503 Service Unavailable con cabecera {@code Retry-After}.
+ */
+public class ServiceOverloadedException extends RuntimeException {
+
+    /**
+     * Recurso saturado (por ejemplo: "passwordHashing").
+     */
+    private final String resource;
+
+    /**
+     * Segundos que el cliente debería esperar antes de reintentar.
+     */
+    private final long retryAfterSeconds;
+
+    /**
+     * Construye la excepción indicando el recurso saturado y el tiempo de reintento sugerido.
+     *
+     * @param resource          nombre del recurso (ej. {@code "passwordHashing"}).
+     * @param retryAfterSeconds segundos para la cabecera {@code Retry-After}.
+     */
+    public ServiceOverloadedException(String resource, long retryAfterSeconds) {
+        super(resource + " overloaded (retry after " + retryAfterSeconds + "s)");
+        this.resource = resource;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    // ===== Getters requeridos por ApiExceptionHandler =====
+
+    public String getResource() {
+        return resource;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -1,16 +1,25 @@
 package org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.filters;
 
-import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.services.CustomUserDetailsService;
-import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.utils.JwtUtil;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.services.RevokedTokenDenylist;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.services.RoleAuthorityIndex;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.services.UserSecurityStateRegistry;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.utils.VerifiedToken;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.utils.VerifiedTokenCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -21,12 +30,31 @@ import java.util.List;
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+    private static final Logger log = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
+
     @Autowired
-    private JwtUtil jwtUtil; // Utilidad para generar, extraer y validar tokens JWT
+    private VerifiedTokenCache verifiedTokenCache; // Caché opcional de tokens ya verificados (delante de JwtUtil)
 
     @Autowired
     private CustomUserDetailsService userDetailsService; // Servicio personalizado para cargar detalles del usuario
 
+    @Autowired
+    private UserSecurityStateRegistry userSecurityStateRegistry; // Estado activo/bloqueado/versión en memoria
+
+    @Autowired
+    private RevokedTokenDenylist revokedTokenDenylist; // JWT revocados por logout (Bloom + conjunto exacto)
+
+    @Autowired
+    private RoleAuthorityIndex roleAuthorityIndex; // Máscara de roles -> lista de authorities compartida
+
+    /**
+     * Modo sin estado: el principal se construye solo con los claims verificados
+     * (sin consultar la BD en cada petición). El estado de la cuenta se comprueba
+     * contra {@link UserSecurityStateRegistry}.
+     */
+    @Value("${jwt.auth.stateless:false}")
+    private boolean stateless;
+
     @Override
     protected void doFilterInternal(
             HttpServletRequest request,
@@ -50,8 +78,27 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         // 3. Extraer el token JWT del encabezado (sin el prefijo "Bearer ")
         jwt = authHeader.substring(7); // Elimina los primeros 7 caracteres ("Bearer ")
 
-        // 4. Extraer el nombre de usuario (claim "sub") del token
-        username = jwtUtil.extractUsername(jwt);
+        // 4. Verificar el token una sola vez (firma + caducidad) y quedarnos con sus datos.
+        //    Si la caché está activa y el token ya se vio, no se repite la verificación RSA;
+        //    si no, antes de la firma se descartan sin criptografía los tokens mal formados,
+        //    caducados o con kid/alg desconocidos (JwtPrecheck).
+        final VerifiedToken verifiedToken;
+        try {
+            verifiedToken = verifiedTokenCache.verify(jwt);
+        } catch (JwtException | IllegalArgumentException e) {
+            // Token inválido, manipulado o expirado: la petición sigue sin autenticar
+            log.debug("Token JWT rechazado: {}", e.getMessage());
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        // 4b. Token revocado (logout): se ignora, la petición sigue sin autenticar
+        if (revokedTokenDenylist.isRevoked(verifiedToken.getJti(), verifiedToken.getExpiresAt())) {
+            log.debug("Token JWT revocado (jti={})", verifiedToken.getJti());
+            filterChain.doFilter(request, response);
+            return;
+        }
+        username = verifiedToken.getSubject();
 
         // 5. Verificar si:
         // - El nombre de usuario extraído no es nulo
@@ -59,25 +106,22 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         if (username != null
                 && SecurityContextHolder.getContext().getAuthentication() == null) {
 
-            // 6. Cargar los detalles del usuario desde el servicio personalizado
-            var userDetails = userDetailsService.loadUserByUsername(username);
+            // 6. Roles del token verificado como GrantedAuthority (lista compartida por máscara/roles)
+            List<GrantedAuthority> authorities = roleAuthorityIndex.authoritiesOf(verifiedToken);
 
-            // 7. Validar el token JWT con el nombre de usuario del usuario cargado
-            if (jwtUtil.validateToken(jwt, userDetails.getUsername())) {
+            // 7-9. Obtener el principal:
+            //  - sin estado: a partir de los claims verificados + registro en memoria
+            //  - con estado: cargando el usuario desde el servicio personalizado
+            UserDetails principal = stateless
+                    ? principalFromClaims(username, verifiedToken, authorities)
+                    : principalFromDatabase(username);
 
-                // 8. Extraer los claims del token (como los roles)
-                Claims claims = jwtUtil.extractAllClaims(jwt);
-
-                // 9. Extraer los roles del claim "roles" y convertirlos en GrantedAuthority
-                List<String> roles = claims.get("roles", List.class);
-                List<SimpleGrantedAuthority> authorities = roles.stream()
-                        .map(SimpleGrantedAuthority::new)
-                        .toList();
+            if (principal != null) {
 
                 // 10. Crear un objeto UsernamePasswordAuthenticationToken
                 UsernamePasswordAuthenticationToken authToken =
                         new UsernamePasswordAuthenticationToken(
-                                userDetails,
+                                principal,
                                 null,
                                 authorities
                         );
@@ -96,4 +140,31 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    /**
+     * Construye el principal solo con los claims del token (modo sin estado).
+     * Devuelve {@code null} si el usuario está desactivado, bloqueado, borrado
+     * o si el token es anterior a su último cambio de seguridad.
+     */
+    private UserDetails principalFromClaims(String username, VerifiedToken verifiedToken,
+                                            List<GrantedAuthority> authorities) {
+        if (!userSecurityStateRegistry.isTokenAllowed(username, verifiedToken.getIssuedAt())) {
+            log.debug("Token rechazado por el estado de seguridad del usuario {}", username);
+            return null;
+        }
+
+        return User.withUsername(username)
+                .password("") // No hay credenciales: el usuario ya se autenticó con el token
+                .authorities(authorities)
+                .build();
+    }
+
+    /**
+     * Carga el usuario desde BD y comprueba que el subject del token le corresponde y que la
+     * cuenta no está bloqueada (la firma y la caducidad ya se verificaron antes).
+     */
+    private UserDetails principalFromDatabase(String username) {
+        UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+        return username.equals(userDetails.getUsername()) && userDetails.isAccountNonLocked()
+                ? userDetails : null;
+    }
 }
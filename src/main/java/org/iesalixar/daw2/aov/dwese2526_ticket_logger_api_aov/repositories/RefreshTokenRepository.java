@@ -0,0 +1,68 @@
+package org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.repositories;
+
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.entities.RefreshToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Repositorio Spring Data JPA para los refresh tokens.
+ * <p>
+ * Permite localizar tokens por su hash (índice único), rotarlos de forma atómica,
+ * revocar familias completas y limpiar tokens antiguos.
+ * </p>
+ */
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
+
+
+    /**
+     * Busca un refresh token por su hash (SHA-256 en hex).
+     *
+     * @param tokenHash hash del token recibido (nunca el token en claro).
+     * @return token si existe; vacío si no se encuentra.
+     */
+    Optional<RefreshToken> findByTokenHash(String tokenHash);
+
+
+    /**
+     * Marca el token como usado solo si todavía no lo estaba.
+     * <p>
+     * Es la operación atómica de la rotación: si dos peticiones presentan el mismo token
+     * a la vez, solo una actualiza la fila (devuelve 1); la otra es una reutilización (devuelve 0).
+     * </p>
+     *
+     * @param id  id del token.
+     * @param now fecha/hora actual.
+     * @return número de filas actualizadas (0 o 1).
+     */
+    @Modifying
+    @Query("update RefreshToken t set t.usedAt = :now where t.id = :id and t.usedAt is null and t.revokedAt is null")
+    int markUsed(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+
+    /**
+     * Revoca todos los tokens de una familia de rotación.
+     *
+     * @param familyId familia a revocar.
+     * @param now      fecha/hora actual.
+     * @return número de tokens afectados.
+     */
+    @Modifying
+    @Query("update RefreshToken t set t.revokedAt = :now where t.familyId = :familyId and t.revokedAt is null")
+    int revokeFamily(@Param("familyId") String familyId, @Param("now") LocalDateTime now);
+
+
+    /**
+     * Elimina tokens caducados o revocados.
+     *
+     * @param now fecha/hora actual para comparar caducidades.
+     * @return número de tokens eliminados.
+     */
+    @Modifying
+    @Query("delete from RefreshToken t where t.expiresAt < :now or t.revokedAt is not null")
+    int deleteOldTokens(@Param("now") LocalDateTime now);
+}
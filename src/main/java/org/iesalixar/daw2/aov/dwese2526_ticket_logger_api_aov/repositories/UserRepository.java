@@ -1,10 +1,21 @@
 package org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.repositories;
 
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.dtos.UserSecurityStateDTO;
 import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.entities.User;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -39,4 +50,43 @@ public interface UserRepository extends JpaRepository<User, Long> {
      */
     Optional<User> findByEmailIgnoreCase(String email);
 
+
+    /**
+     * Devuelve los flags de seguridad (active / account_non_locked / security_changed_at) de todos
+     * los usuarios, sin cargar entidades. Se usa para inicializar el registro en memoria al arrancar.
+     */
+    @Query("select new org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.dtos.UserSecurityStateDTO("
+            + "u.email, u.active, u.accountNonLocked, u.securityChangedAt) from User u")
+    List<UserSecurityStateDTO> findAllSecurityStates();
+
+    /**
+     * Devuelve los flags de seguridad de un usuario concreto, sin cargar la entidad ni sus roles.
+     */
+    @Query("select new org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.dtos.UserSecurityStateDTO("
+            + "u.email, u.active, u.accountNonLocked, u.securityChangedAt) from User u where u.email = :email")
+    Optional<UserSecurityStateDTO> findSecurityStateByEmail(@Param("email") String email);
+
+    /**
+     * Sustituye el hash de la contraseña sin cargar la entidad (rehash tras login con otro coste BCrypt).
+     *
+     * @return número de filas actualizadas.
+     */
+    @Modifying
+    @Query("update User u set u.passwordHash = :passwordHash where u.email = :email")
+    int updatePasswordHash(@Param("email") String email, @Param("passwordHash") String passwordHash);
+
+    /**
+     * Página de usuarios por clave (keyset): con una {@link org.springframework.data.domain.KeysetScrollPosition}
+     * Spring Data genera {@code WHERE (email, id) > (:email, :id) ORDER BY email, id LIMIT n+1}
+     * (el id se añade al orden como desempate), que se resuelve con el índice único de
+     * {@code email} o la clave primaria en lugar de recorrer y descartar filas con {@code OFFSET}.
+     * No ejecuta {@code COUNT}.
+     */
+    Window<User> findBy(ScrollPosition position, Sort sort, Limit limit);
+
+    /**
+     * Página de usuarios sin {@code COUNT}: al devolver {@link Slice}, Spring Data pide
+     * {@code size + 1} filas y usa la sobrante solo para saber si hay página siguiente.
+     */
+    Slice<User> findAllBy(Pageable pageable);
 }
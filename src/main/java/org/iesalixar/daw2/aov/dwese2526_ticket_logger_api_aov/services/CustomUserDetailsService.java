@@ -1,15 +1,30 @@
 package org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.services;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.transaction.Transactional;
 import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.entities.User;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.events.AccountLockChangedEvent;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.events.UserChangedEvent;
 import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.repositories.UserRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
 
+import java.time.Duration;
+import java.util.Locale;
 import java.util.stream.Collectors;
 
 /**
@@ -23,15 +38,27 @@ import java.util.stream.Collectors;
  * <ul>
  *   <li>Obtiene el usuario por email</li>
  *   <li>Devuelve un {@link org.springframework.security.core.userdetails.User} con sus roles</li>
- *   <li>Aplica únicamente el flag de cuenta activa ({@code active}) como "disabled"</li>
+ *   <li>Aplica el flag de cuenta activa ({@code active}) como "disabled" y el de bloqueo
+ *       ({@code account_non_locked}) como "locked"</li>
  * </ul>
  * </p>
  *
  * <p>Más adelante se añadirán reglas adicionales de ciberseguridad:
- * bloqueo por intentos, expiración de contraseña, email verificado, etc.</p>
+ * expiración de contraseña, email verificado, etc.</p>
+ *
+ * <p><b>Cachés:</b> los resultados pasan por una caché acotada con TTL
+ * ({@code security.user-details-cache.*}) y los emails inexistentes por una caché negativa,
+ * para que el relleno de credenciales contra {@code /api/auth/authenticate} no se traduzca en
+ * un {@code findByEmail} por intento. Ambas se invalidan con {@link UserChangedEvent} tras el
+ * commit (y con {@link AccountLockChangedEvent} al bloquearse o desbloquearse una cuenta por
+ * intentos fallidos) y publican métricas {@code cache.*{cache=users.details|users.unknown}}.</p>
+ *
+ * <p><b>Rehash:</b> como {@link UserDetailsPasswordService}, Spring Security llama a
+ * {@link #updatePassword} tras un login correcto cuando el hash guardado tiene un coste BCrypt
+ * distinto al objetivo, así el coste por login converge al calibrado.</p>
  */
 @Service
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
 
     private static final Logger log = LoggerFactory.getLogger(CustomUserDetailsService.class);
@@ -42,6 +69,43 @@ public class CustomUserDetailsService implements UserDetailsService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${security.user-details-cache.maximum-size:10000}")
+    private long maximumSize;
+
+    @Value("${security.user-details-cache.ttl:5m}")
+    private Duration ttl;
+
+    @Value("${security.user-details-cache.negative-ttl:1m}")
+    private Duration negativeTtl;
+
+    /** Usuarios encontrados (clave: email en minúsculas). */
+    private Cache<String, UserDetails> userDetailsCache;
+
+    /** Emails que no existen en BD (clave: email en minúsculas). */
+    private Cache<String, Boolean> unknownEmailCache;
+
+
+    @PostConstruct
+    void initCaches() {
+        userDetailsCache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+
+        unknownEmailCache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(negativeTtl)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, userDetailsCache, "users.details");
+        CaffeineCacheMetrics.monitor(meterRegistry, unknownEmailCache, "users.unknown");
+    }
+
 
     /**
      * Carga los detalles de autenticación/autorización del usuario a partir del "username".
@@ -55,6 +119,7 @@ public class CustomUserDetailsService implements UserDetailsService {
      *   <li>{@code password}: hash BCrypt almacenado en {@code password_hash}</li>
      *   <li>{@code authorities}: roles tipo {@code ROLE_USER}, {@code ROLE_ADMIN}, etc.</li>
      *   <li>{@code disabled}: basado en {@code active}</li>
+     *   <li>{@code accountLocked}: basado en {@code account_non_locked}</li>
      * </ul>
      * </p>
      *
@@ -70,11 +135,27 @@ public class CustomUserDetailsService implements UserDetailsService {
 
 
         final String email = username;
+        final String cacheKey = cacheKey(email);
+
+
+        // Caché negativa: email inexistente visto recientemente -> sin consulta a BD
+        if (unknownEmailCache.getIfPresent(cacheKey) != null) {
+            throw new UsernameNotFoundException("Usuario no encontrado: " + email);
+        }
+
+
+        // Caché positiva: se devuelve una copia porque Spring Security borra la contraseña
+        // del UserDetails autenticado (eraseCredentials) y no debe afectar a la entrada cacheada
+        UserDetails cached = userDetailsCache.getIfPresent(cacheKey);
+        if (cached != null) {
+            return org.springframework.security.core.userdetails.User.withUserDetails(cached).build();
+        }
 
 
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> {
                     log.warn("No se encontró usuario con email={}", email);
+                    unknownEmailCache.put(cacheKey, Boolean.TRUE);
                     return new UsernameNotFoundException("Usuario no encontrado: " + email);
                 });
 
@@ -91,9 +172,8 @@ public class CustomUserDetailsService implements UserDetailsService {
                                 .collect(Collectors.toList())
                                 .toArray(new String[0])
                 )
-                // Versión mínima: sin reglas extra aún.
                 .accountExpired(false)
-                .accountLocked(false)
+                .accountLocked(!user.isAccountNonLocked())
                 .credentialsExpired(false)
                 .disabled(!user.isActive())
                 .build();
@@ -108,7 +188,71 @@ public class CustomUserDetailsService implements UserDetailsService {
         );
 
 
-        return userDetails;
+        userDetailsCache.put(cacheKey, userDetails);
+
+
+        return org.springframework.security.core.userdetails.User.withUserDetails(userDetails).build();
+    }
+
+
+    /**
+     * Guarda el nuevo hash de la contraseña (mismo texto plano, coste BCrypt objetivo).
+     *
+     * <p>No publica {@link UserChangedEvent}: la contraseña no cambia, así que los JWT emitidos
+     * siguen siendo válidos. Solo se descarta la entrada cacheada con el hash anterior.</p>
+     *
+     * @param user        usuario recién autenticado.
+     * @param newPassword hash recalculado por el {@code PasswordEncoder}.
+     * @return el mismo usuario con el nuevo hash.
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        int updated = userRepository.updatePasswordHash(user.getUsername(), newPassword);
+        evict(user.getUsername());
+
+        log.info("Hash de contraseña recalculado con el coste BCrypt objetivo (email={}, filas={})",
+                user.getUsername(), updated);
+
+        return org.springframework.security.core.userdetails.User.withUserDetails(user)
+                .password(newPassword)
+                .build();
+    }
+
+
+    /**
+     * Invalida las entradas del usuario (email anterior y nuevo) cuando un alta, modificación
+     * (incluidos sus roles) o baja se ha confirmado en BD.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        evict(event.getPreviousEmail());
+        evict(event.getEmail());
+    }
+
+
+    /**
+     * Invalida la entrada del usuario al bloquearse o desbloquearse su cuenta por intentos fallidos.
+     */
+    @EventListener
+    public void onAccountLockChanged(AccountLockChangedEvent event) {
+        evict(event.getEmail());
+    }
+
+
+    private void evict(String email) {
+        if (email == null) {
+            return;
+        }
+        String key = cacheKey(email);
+        userDetailsCache.invalidate(key);
+        unknownEmailCache.invalidate(key);
+    }
+
+
+    /** El email se compara sin distinguir mayúsculas (igual que la collation de la BD). */
+    private static String cacheKey(String email) {
+        return email.toLowerCase(Locale.ROOT);
     }
 
 
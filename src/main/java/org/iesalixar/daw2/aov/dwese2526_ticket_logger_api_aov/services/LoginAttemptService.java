@@ -0,0 +1,300 @@
+package org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.events.AccountLockChangedEvent;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.events.UserChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Control de intentos fallidos de login y bloqueo de cuentas ({@code failed_login_attempts} /
+ * {@code account_non_locked}).
+ *
+ * <ul>
+ *   <li><b>En memoria:</b> un estado por usuario existente en un {@link ConcurrentHashMap}
+ *       (segmentado internamente) con contadores atómicos, sin locks. La decisión de bloqueo se
+ *       toma aquí, así que un ataque de fuerza bruta no añade ninguna escritura síncrona a BD.</li>
+ *   <li><b>Write-behind:</b> los estados modificados se vuelcan en lote con un único
+ *       {@code batchUpdate} cada {@code security.login-attempts.flush-interval} (y al parar).</li>
+ *   <li>Solo se registran emails que existen: los inventados por un atacante no ocupan memoria.</li>
+ *   <li>Un bloqueo, o el vencimiento de un bloqueo temporal, se guarda en BD en el momento
+ *       ({@code account_non_locked} y {@code locked_until}) y se publica como
+ *       {@link AccountLockChangedEvent}, para que el registro de estado de seguridad invalide los
+ *       JWT ya emitidos y la caché de {@code UserDetails} no sirva el estado anterior.</li>
+ *   <li>El bloqueo es temporal ({@code security.login-attempts.lock-duration}): el login es público,
+ *       así que un bloqueo indefinido permitiría a cualquiera dejar sin acceso una cuenta (también
+ *       la de un administrador) con unos pocos intentos. Solo es indefinido si se activa
+ *       {@code security.login-attempts.lock-permanently}. Los bloqueos vencidos se levantan al
+ *       consultar la cuenta y en cada volcado, para que el login del formulario web (que lee
+ *       {@code account_non_locked} de BD) también los vea.</li>
+ * </ul>
+ *
+ * <p>La memoria es la fuente de verdad mientras la aplicación está en marcha; un cambio hecho
+ * por un administrador ({@link UserChangedEvent}) la sobrescribe. Al arrancar, un bloqueo con
+ * {@code locked_until} sigue siendo temporal y uno sin fecha es indefinido.</p>
+ */
+@Service
+public class LoginAttemptService {
+
+    private static final Logger log = LoggerFactory.getLogger(LoginAttemptService.class);
+
+    /** Bloqueo sin fecha de fin (lo levanta un administrador). */
+    private static final long LOCKED_FOREVER = AccountLockChangedEvent.LOCKED_FOREVER;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${security.login-attempts.max-failures:5}")
+    private int maxFailures;
+
+    @Value("${security.login-attempts.lock-duration:PT15M}")
+    private Duration lockDuration;
+
+    // true = el bloqueo dura hasta que un administrador desbloquee la cuenta (se ignora lock-duration)
+    @Value("${security.login-attempts.lock-permanently:false}")
+    private boolean lockPermanently;
+
+    /** Estado por email en minúsculas. */
+    private final ConcurrentMap<String, AttemptState> states = new ConcurrentHashMap<>();
+
+    private Counter failuresCounter;
+    private Counter lockoutsCounter;
+
+    @PostConstruct
+    void loadAll() {
+        if (!lockPermanently && (lockDuration.isZero() || lockDuration.isNegative())) {
+            throw new IllegalStateException("security.login-attempts.lock-duration debe ser positiva "
+                    + "(para bloqueos indefinidos, security.login-attempts.lock-permanently=true)");
+        }
+
+        jdbcTemplate.query(
+                "SELECT email, failed_login_attempts, account_non_locked, locked_until FROM users",
+                rs -> {
+                    String email = rs.getString("email");
+                    Timestamp lockedUntil = rs.getTimestamp("locked_until");
+                    states.put(key(email), new AttemptState(
+                            email,
+                            rs.getInt("failed_login_attempts"),
+                            rs.getBoolean("account_non_locked") ? 0L
+                                    : lockedUntil != null ? lockedUntil.getTime() : LOCKED_FOREVER));
+                });
+
+        failuresCounter = meterRegistry.counter("login.failures");
+        lockoutsCounter = meterRegistry.counter("login.lockouts");
+        Gauge.builder("login.attempts.pending.flush", states,
+                        s -> s.values().stream().filter(st -> st.dirty.get()).count())
+                .register(meterRegistry);
+
+        log.info("Intentos de login inicializados para {} usuarios", states.size());
+    }
+
+    /**
+     * Indica si la cuenta está bloqueada. Se consulta antes de autenticar para no gastar BCrypt.
+     */
+    public boolean isLocked(String email) {
+        if (email == null) {
+            return false;
+        }
+        AttemptState state = states.get(key(email));
+        if (state == null) {
+            return false;
+        }
+        if (state.expire(System.currentTimeMillis())) {
+            // Se guarda antes de autenticar: UserDetails lee account_non_locked de BD
+            flush();
+            eventPublisher.publishEvent(AccountLockChangedEvent.unlocked(state.email));
+            log.info("Bloqueo temporal vencido (email={})", state.email);
+            return false;
+        }
+        return state.lockedUntil != 0L;
+    }
+
+    /**
+     * Registra un login fallido (contraseña incorrecta) y bloquea la cuenta al llegar al máximo.
+     */
+    public void loginFailed(String email) {
+        if (email == null) {
+            return;
+        }
+        AttemptState state = states.get(key(email));
+        if (state == null) {
+            return; // Email inexistente: no se registra
+        }
+
+        failuresCounter.increment();
+        int failures = state.failures.incrementAndGet();
+        state.dirty.set(true);
+
+        if (failures >= maxFailures && state.lockedUntil == 0L) {
+            long lockedUntil = lockPermanently
+                    ? LOCKED_FOREVER
+                    : System.currentTimeMillis() + lockDuration.toMillis();
+            state.lockedUntil = lockedUntil;
+            lockoutsCounter.increment();
+            log.warn("Cuenta bloqueada tras {} intentos fallidos (email={})", failures, state.email);
+
+            // Escrituras por bloqueo (no por intento): refresh y UserDetails leen el flag de BD y
+            // security_changed_at invalida los JWT ya emitidos también en otras instancias y tras reiniciar
+            LocalDateTime lockedAt = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+            try {
+                jdbcTemplate.update("UPDATE users SET security_changed_at = ? WHERE email = ?",
+                        Timestamp.valueOf(lockedAt), state.email);
+            } catch (RuntimeException e) {
+                log.error("No se pudo guardar security_changed_at del bloqueo (email={}): {}", state.email, e.getMessage());
+            }
+            flush();
+            eventPublisher.publishEvent(AccountLockChangedEvent.locked(state.email, lockedUntil, lockedAt));
+        }
+    }
+
+    /**
+     * Registra un login correcto: pone el contador a cero si no lo estaba.
+     */
+    public void loginSucceeded(String email) {
+        AttemptState state = states.get(key(email));
+        if (state != null && state.failures.getAndSet(0) != 0) {
+            state.dirty.set(true);
+        }
+    }
+
+    /**
+     * Vuelca en lote los estados modificados desde el último volcado, levantando antes los
+     * bloqueos temporales vencidos de cuentas que nadie ha vuelto a consultar.
+     */
+    @Scheduled(fixedDelayString = "${security.login-attempts.flush-interval:PT5S}")
+    @PreDestroy
+    public void flush() {
+        List<AttemptState> flushed = new ArrayList<>();
+        List<AttemptState> expired = new ArrayList<>();
+        List<Object[]> batch = new ArrayList<>();
+        long now = System.currentTimeMillis();
+
+        for (AttemptState state : states.values()) {
+            if (state.expire(now)) {
+                expired.add(state);
+            }
+            if (state.dirty.compareAndSet(true, false)) {
+                flushed.add(state);
+                long until = state.lockedUntil;
+                // Un bloqueo temporal ya vencido se guarda como desbloqueado (isLocked lo detectará)
+                boolean locked = until != 0L && (until == LOCKED_FOREVER || until > now);
+                batch.add(new Object[]{
+                        state.failures.get(),
+                        !locked,
+                        locked && until != LOCKED_FOREVER ? new Timestamp(until) : null,
+                        state.email});
+            }
+        }
+
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            jdbcTemplate.batchUpdate(
+                    "UPDATE users SET failed_login_attempts = ?, account_non_locked = ?, locked_until = ? WHERE email = ?",
+                    batch);
+            log.debug("Intentos de login volcados a BD: {} usuarios", batch.size());
+
+        } catch (RuntimeException e) {
+            // Se reintenta en el siguiente ciclo
+            flushed.forEach(state -> state.dirty.set(true));
+            log.error("No se pudieron volcar los intentos de login ({} usuarios): {}", batch.size(), e.getMessage());
+        }
+
+        // El desbloqueo en memoria ya está hecho: se publica aunque el volcado se reintente
+        for (AttemptState state : expired) {
+            eventPublisher.publishEvent(AccountLockChangedEvent.unlocked(state.email));
+            log.info("Bloqueo temporal vencido (email={})", state.email);
+        }
+    }
+
+    /**
+     * Mantiene el mapa al día con altas/bajas y aplica los bloqueos/desbloqueos hechos por un administrador.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        if (event.getPreviousEmail() != null) {
+            states.remove(key(event.getPreviousEmail()));
+        }
+
+        if (!event.isDeleted()) {
+            // Lo guardado por el administrador es la nueva referencia: desbloqueo = contador a cero.
+            // Se marca para volcar y así borrar un locked_until anterior (su bloqueo es indefinido)
+            AttemptState state = new AttemptState(
+                    event.getEmail(), 0, event.isAccountNonLocked() ? 0L : LOCKED_FOREVER);
+            state.dirty.set(true);
+            states.put(key(event.getEmail()), state);
+        }
+    }
+
+    private static String key(String email) {
+        return email.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Estado mutable de un usuario; sus campos se actualizan sin locks salvo el vencimiento
+     * del bloqueo, que se hace una sola vez.
+     */
+    private static final class AttemptState {
+
+        private final String email;
+        private final AtomicInteger failures;
+        private final AtomicBoolean dirty = new AtomicBoolean(false);
+
+        /** 0 = no bloqueada; epoch millis de fin del bloqueo; {@link #LOCKED_FOREVER} = indefinido. */
+        private volatile long lockedUntil;
+
+        private AttemptState(String email, int failures, long lockedUntil) {
+            this.email = email;
+            this.failures = new AtomicInteger(failures);
+            this.lockedUntil = lockedUntil;
+        }
+
+        /**
+         * Levanta el bloqueo temporal si ya ha vencido y reinicia el contador.
+         *
+         * @return {@code true} solo en la llamada que lo levanta.
+         */
+        private synchronized boolean expire(long now) {
+            long until = lockedUntil;
+            if (until == 0L || until == LOCKED_FOREVER || now < until) {
+                return false;
+            }
+            lockedUntil = 0L;
+            failures.set(0);
+            dirty.set(true);
+            return true;
+        }
+    }
+}
@@ -1,13 +1,63 @@
 package org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.services;
 
 import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.dtos.*;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.exceptions.InvalidRequestParameterException;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.exceptions.ResourceNotFoundException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.io.InputStream;
+import java.util.List;
+
 public interface ProvinceService {
 
     Page<ProvinceDTO> list(Pageable pageable);
 
+    /**
+     * Listado sin total ({@code ?withTotal=false}): contenido y si hay página siguiente.
+     */
+    SliceDTO<ProvinceDTO> slice(Pageable pageable);
+
+    /**
+     * Listado por cursor: {@code cursor} vacío para la primera página; el orden
+     * ({@code id}, {@code code} o {@code name}) se toma de {@code pageable} y después viaja en el cursor.
+     */
+    CursorPageDTO<ProvinceDTO> scroll(String cursor, Pageable pageable);
+
+    /**
+     * Autocompletado: hasta {@code limit} provincias cuyo nombre tiene una palabra que empieza por
+     * {@code q} (sin distinguir mayúsculas ni tildes), mejores coincidencias primero.
+     */
+    List<ProvinceDTO> suggest(String q, int limit);
+
+    /**
+     * Varias provincias por id en una sola llamada, en el orden pedido; los ids que no existen se
+     * devuelven en {@code missingIds}.
+     *
+     * @throws InvalidRequestParameterException si no hay ids, alguno está vacío o se supera el máximo.
+     */
+    ItemsByIdDTO<ProvinceDTO> findByIds(List<Long> ids);
+
+    /**
+     * Provincia y región de un código postal (5 cifras; las dos primeras son el código de provincia).
+     *
+     * @throws InvalidRequestParameterException si no tiene 5 cifras.
+     * @throws ResourceNotFoundException         si ninguna provincia tiene ese prefijo.
+     */
+    PostalCodeResolutionDTO resolve(String postalCode);
+
+    /**
+     * Resolución en lote de un array JSON de códigos postales, en el mismo orden de entrada; los
+     * códigos no válidos o sin provincia se devuelven con {@code resolved=false}.
+     *
+     * <p>El cuerpo se lee en streaming: la petición se rechaza en cuanto supera el máximo de códigos
+     * (o de bytes), sin llegar a cargar el array entero.</p>
+     *
+     * @throws InvalidRequestParameterException si el cuerpo no es un array de valores simples o si
+     *                                          se supera el máximo de códigos por petición.
+     */
+    List<PostalCodeResolutionDTO> resolveAll(InputStream json);
+
     ProvinceDTO getById(Long id);
 
     ProvinceDTO create(ProvinceCreateDTO dto);
@@ -1,45 +1,192 @@
 package org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.services;
 
+import jakarta.annotation.PostConstruct;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.dtos.*;
 import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.entities.Province;
 import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.entities.Region;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.events.ReferenceDataChangedEvent;
 import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.exceptions.DuplicateResourceException;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.exceptions.InvalidRequestParameterException;
 import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.exceptions.ResourceNotFoundException;
 import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.mappers.ProvinceMapper;
 import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.repositories.ProvinceRepository;
 import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.repositories.RegionRepository;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.utils.PageCursor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import tools.jackson.core.JacksonException;
+import tools.jackson.core.JsonParser;
+import tools.jackson.core.JsonToken;
+import tools.jackson.core.ObjectReadContext;
+import tools.jackson.core.StreamReadConstraints;
+import tools.jackson.core.exc.JacksonIOException;
+import tools.jackson.core.exc.StreamConstraintsException;
+import tools.jackson.core.json.JsonFactory;
+
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
 
 @Service
 @Transactional
 @RequiredArgsConstructor
 public class ProvinceServiceImpl implements ProvinceService {
 
+    /**
+     * Bytes de cuerpo admitidos por código en la resolución en lote: {@code "41001",} ocupa 8 y el
+     * resto deja margen para espacios y saltos de línea de un JSON indentado.
+     */
+    private static final int RESOLVE_MAX_BYTES_PER_CODE = 32;
+
     private final ProvinceRepository provinceRepository;
     private final RegionRepository regionRepository;
+    private final ReferenceDataRegistry referenceDataRegistry;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${reference-data.resolve.max-batch-size:10000}")
+    private int maxResolveBatchSize;
+
+    /**
+     * Parser del lote con el tamaño del cuerpo acotado según el máximo de códigos. Jackson lo
+     * comprueba al rellenar su búfer, así que como mucho se lee el límite más un búfer (8 KB).
+     */
+    private JsonFactory resolveJsonFactory;
+
+    @PostConstruct
+    void initResolveJsonFactory() {
+        resolveJsonFactory = JsonFactory.builder()
+                .streamReadConstraints(StreamReadConstraints.builder()
+                        .maxDocumentLength((long) maxResolveBatchSize * RESOLVE_MAX_BYTES_PER_CODE)
+                        .build())
+                .build();
+    }
 
-    // LISTAR
+    // LISTAR (desde la instantánea en memoria, sin transacción ni BD)
     @Override
+    @Transactional(Transactional.TxType.SUPPORTS)
     public Page<ProvinceDTO> list(Pageable pageable) {
-        return provinceRepository
-                .findAll(pageable)
-                .map(ProvinceMapper::toDTO);
+        return referenceDataRegistry.current().provinces(pageable);
+    }
+
+    // LISTAR SIN TOTAL (misma instantánea: ni COUNT ni consulta)
+    @Override
+    @Transactional(Transactional.TxType.SUPPORTS)
+    public SliceDTO<ProvinceDTO> slice(Pageable pageable) {
+        return SliceDTO.of(referenceDataRegistry.current().provinces(pageable));
+    }
+
+    // LISTAR POR CURSOR (búsqueda binaria en la instantánea, sin OFFSET ni COUNT)
+    @Override
+    @Transactional(Transactional.TxType.SUPPORTS)
+    public CursorPageDTO<ProvinceDTO> scroll(String cursor, Pageable pageable) {
+        PageCursor after = cursor == null || cursor.isBlank() ? null : PageCursor.decode(cursor, "province");
+        Sort.Order order = PageCursor.singleOrder(after != null ? Sort.by(after.order()) : pageable.getSort(),
+                "province", ReferenceDataSnapshot.CURSOR_PROPERTIES);
+
+        return referenceDataRegistry.current().provincesAfter(order, after, pageable.getPageSize());
     }
 
-    // OBTENER POR ID
+    // AUTOCOMPLETAR POR NOMBRE (índice en memoria de la instantánea, sin tildes ni mayúsculas)
     @Override
+    @Transactional(Transactional.TxType.SUPPORTS)
+    public List<ProvinceDTO> suggest(String q, int limit) {
+        if (limit < 1 || limit > ReferenceDataSnapshot.MAX_SUGGESTIONS) {
+            throw new InvalidRequestParameterException("province", "limit", limit,
+                    "Expected 1.." + ReferenceDataSnapshot.MAX_SUGGESTIONS);
+        }
+        return referenceDataRegistry.current().suggestProvinces(q, limit);
+    }
+
+    // OBTENER VARIOS POR ID (índice por id de la instantánea, en el orden pedido)
+    @Override
+    @Transactional(Transactional.TxType.SUPPORTS)
+    public ItemsByIdDTO<ProvinceDTO> findByIds(List<Long> ids) {
+        if (ids == null || ids.isEmpty() || ids.size() > ReferenceDataSnapshot.MAX_IDS) {
+            throw new InvalidRequestParameterException("province", "ids", ids,
+                    "Expected 1.." + ReferenceDataSnapshot.MAX_IDS + " ids");
+        }
+        if (ids.contains(null)) {
+            throw new InvalidRequestParameterException("province", "ids", ids, "Empty id");
+        }
+        return referenceDataRegistry.current().provincesByIds(ids);
+    }
+
+    // RESOLVER CÓDIGO POSTAL (tabla de 100 posiciones de la instantánea, sin BD)
+    @Override
+    @Transactional(Transactional.TxType.SUPPORTS)
+    public PostalCodeResolutionDTO resolve(String postalCode) {
+        if (!ReferenceDataSnapshot.isPostalCode(postalCode)) {
+            throw new InvalidRequestParameterException("province", "postalCode", postalCode, "Expected 5 digits");
+        }
+
+        PostalCodeResolutionDTO resolution = referenceDataRegistry.current().resolvePostalCode(postalCode);
+        if (!resolution.isResolved()) {
+            throw new ResourceNotFoundException("province", "postalCode", postalCode);
+        }
+        return resolution;
+    }
+
+    // RESOLVER EN LOTE: se lee el array elemento a elemento y se resuelve según llega.
+    // En secuencia y en el hilo de la petición: cada código son dos lecturas de array (~100 ns),
+    // así que el lote máximo se resuelve en torno a un milisegundo, menos de lo que cuesta repartir
+    // bloques entre hilos; el tiempo se va en leer el JSON y escribir la respuesta.
+    @Override
+    @Transactional(Transactional.TxType.SUPPORTS)
+    public List<PostalCodeResolutionDTO> resolveAll(InputStream json) {
+        ReferenceDataSnapshot snapshot = referenceDataRegistry.current();
+        List<PostalCodeResolutionDTO> results = new ArrayList<>();
+
+        try (JsonParser parser = resolveJsonFactory.createParser(ObjectReadContext.empty(), json)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw invalidResolveBody();
+            }
+
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token == null || !token.isScalarValue()) {
+                    throw invalidResolveBody();
+                }
+                if (results.size() == maxResolveBatchSize) {
+                    throw tooManyPostalCodes();
+                }
+                results.add(snapshot.resolvePostalCode(parser.getValueAsString()));
+            }
+        } catch (JacksonIOException e) {
+            throw new UncheckedIOException(e.getCause());
+        } catch (StreamConstraintsException e) {
+            throw tooManyPostalCodes();
+        } catch (JacksonException e) {
+            throw invalidResolveBody();
+        }
+        return results;
+    }
+
+    private InvalidRequestParameterException invalidResolveBody() {
+        return new InvalidRequestParameterException("province", "postalCodes", null,
+                "Expected a JSON array of postal codes");
+    }
+
+    private InvalidRequestParameterException tooManyPostalCodes() {
+        return new InvalidRequestParameterException("province", "postalCodes", null,
+                "At most " + maxResolveBatchSize + " postal codes per request");
+    }
+
+    // OBTENER POR ID (desde la instantánea en memoria)
+    @Override
+    @Transactional(Transactional.TxType.SUPPORTS)
     public ProvinceDTO getById(Long id) {
 
-        Province province = provinceRepository.findById(id)
+        return referenceDataRegistry.current().province(id)
                 .orElseThrow(() ->
                         new ResourceNotFoundException("province", "id", id)
                 );
-
-        return ProvinceMapper.toDTO(province);
     }
 
     // CREAR
@@ -59,6 +206,7 @@ public class ProvinceServiceImpl implements ProvinceService {
         province.setRegion(region);
 
         Province saved = provinceRepository.save(province);
+        eventPublisher.publishEvent(new ReferenceDataChangedEvent("province", saved.getId()));
 
         return ProvinceMapper.toDTO(saved);
     }
@@ -86,6 +234,7 @@ public class ProvinceServiceImpl implements ProvinceService {
         province.setRegion(region);
 
         Province updated = provinceRepository.save(province);
+        eventPublisher.publishEvent(new ReferenceDataChangedEvent("province", updated.getId()));
 
         return ProvinceMapper.toDTO(updated);
     }
@@ -99,5 +248,6 @@ public class ProvinceServiceImpl implements ProvinceService {
         }
 
         provinceRepository.deleteById(id);
+        eventPublisher.publishEvent(new ReferenceDataChangedEvent("province", id));
     }
 }
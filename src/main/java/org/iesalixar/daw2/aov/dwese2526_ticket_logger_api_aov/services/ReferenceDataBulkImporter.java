@@ -0,0 +1,294 @@
+package org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.services;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.dtos.BulkImportErrorDTO;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.dtos.BulkImportResultDTO;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.dtos.ProvinceCreateDTO;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.dtos.RegionCreateDTO;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.events.ReferenceDataChangedEvent;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.exceptions.InvalidRequestParameterException;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.utils.ImportRowReader;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.utils.TabularFormat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Importación masiva de regiones y provincias desde NDJSON o CSV ({@code POST /api/.../bulk}).
+ *
+ * <ul>
+ *   <li>La entrada se lee en streaming ({@link ImportRowReader}) y se procesa en bloques de
+ *       {@code reference-data.import.chunk-size} filas: en memoria solo está el bloque en curso
+ *       y, como mucho, {@code reference-data.import.max-errors} errores detallados.</li>
+ *   <li>Por bloque: una consulta {@code code IN (...)} para descartar códigos ya existentes y
+ *       un {@code INSERT} por lotes JDBC, todo en una transacción. Un bloque confirmado no se
+ *       deshace si falla uno posterior.</li>
+ *   <li>Las provincias indican su región por código ({@code regionCode}), resuelto con un mapa
+ *       código → id cargado una vez al empezar.</li>
+ *   <li>Cada fila se valida con las mismas reglas que el alta individual
+ *       ({@link RegionCreateDTO} / {@link ProvinceCreateDTO}).</li>
+ *   <li>Al terminar (aunque sea con error) se publica un único {@link ReferenceDataChangedEvent}
+ *       si se ha insertado algo, para reconstruir la instantánea en memoria una sola vez.</li>
+ * </ul>
+ *
+ * <p>Con MariaDB, {@code useBulkStmts=true} en la URL de conexión envía cada lote en un solo
+ * viaje de red.</p>
+ */
+@Service
+public class ReferenceDataBulkImporter {
+
+    private static final Logger log = LoggerFactory.getLogger(ReferenceDataBulkImporter.class);
+
+    private static final List<String> REGION_COLUMNS = List.of("code", "name");
+    private static final List<String> PROVINCE_COLUMNS = List.of("code", "name", "regionCode");
+
+    private static final String INSERT_REGION_SQL = "INSERT INTO regions (code, name) VALUES (?, ?)";
+    private static final String INSERT_PROVINCE_SQL = "INSERT INTO provinces (code, name, region_id) VALUES (?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private JsonMapper jsonMapper;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${reference-data.import.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${reference-data.import.max-errors:1000}")
+    private int maxErrors;
+
+    /**
+     * Importa regiones (columnas {@code code}, {@code name}).
+     *
+     * @param body        cuerpo de la petición (NDJSON o CSV con cabecera).
+     * @param contentType {@code application/x-ndjson} o {@code text/csv} (con charset opcional).
+     * @throws InvalidRequestParameterException si el formato o la cabecera CSV no son válidos.
+     */
+    public BulkImportResultDTO importRegions(InputStream body, MediaType contentType) {
+        return run("region", "regions", INSERT_REGION_SQL, REGION_COLUMNS, body, contentType, (line, values) -> {
+            RegionCreateDTO dto = new RegionCreateDTO(null, trim(values[0]), trim(values[1]));
+            String error = validate(dto);
+            return new Candidate(line, dto.getCode(), new Object[]{dto.getCode(), dto.getName()}, error);
+        });
+    }
+
+    /**
+     * Importa provincias (columnas {@code code}, {@code name}, {@code regionCode}).
+     *
+     * @param body        cuerpo de la petición (NDJSON o CSV con cabecera).
+     * @param contentType {@code application/x-ndjson} o {@code text/csv} (con charset opcional).
+     * @throws InvalidRequestParameterException si el formato o la cabecera CSV no son válidos.
+     */
+    public BulkImportResultDTO importProvinces(InputStream body, MediaType contentType) {
+        Map<String, Long> regionIds = new HashMap<>();
+        jdbcTemplate.query("SELECT id, code FROM regions",
+                rs -> { regionIds.put(rs.getString("code"), rs.getLong("id")); });
+
+        return run("province", "provinces", INSERT_PROVINCE_SQL, PROVINCE_COLUMNS, body, contentType, (line, values) -> {
+            String regionCode = trim(values[2]);
+            Long regionId = regionCode != null ? regionIds.get(regionCode) : null;
+            ProvinceCreateDTO dto = new ProvinceCreateDTO(null, trim(values[0]), trim(values[1]), regionId);
+
+            String error = regionCode != null && regionId == null
+                    ? "region not found (code=" + regionCode + ")"
+                    : validate(dto);
+            return new Candidate(line, dto.getCode(), new Object[]{dto.getCode(), dto.getName(), regionId}, error);
+        });
+    }
+
+    // =========================
+    // Proceso por bloques
+    // =========================
+
+    private BulkImportResultDTO run(String resource, String table, String insertSql, List<String> columns,
+                                    InputStream body, MediaType contentType, RowConverter converter) {
+
+        TabularFormat format = TabularFormat.of(contentType, resource);
+        BulkImportResultDTO result = new BulkImportResultDTO();
+        List<Candidate> chunk = new ArrayList<>(chunkSize);
+        Set<String> chunkCodes = new HashSet<>();
+
+        try (ImportRowReader reader = new ImportRowReader(body, contentType.getCharset(), format, columns,
+                jsonMapper, resource)) {
+
+            ImportRowReader.Row row;
+            while ((row = reader.next()) != null) {
+                result.setRows(result.getRows() + 1);
+                if (!row.isValid()) {
+                    reject(result, row.getLine(), null, row.getError());
+                    continue;
+                }
+
+                Candidate candidate = converter.convert(row.getLine(), row.getValues());
+                if (candidate.getError() != null) {
+                    reject(result, candidate.getLine(), candidate.getCode(), candidate.getError());
+                } else if (!chunkCodes.add(candidate.getCode())) {
+                    reject(result, candidate.getLine(), candidate.getCode(), duplicate(resource, candidate.getCode()));
+                } else {
+                    chunk.add(candidate);
+                }
+
+                if (chunk.size() == chunkSize) {
+                    flush(resource, table, insertSql, chunk, result);
+                    chunk.clear();
+                    chunkCodes.clear();
+                }
+            }
+            flush(resource, table, insertSql, chunk, result);
+
+        } finally {
+            if (result.getInserted() > 0) {
+                eventPublisher.publishEvent(new ReferenceDataChangedEvent(resource, null));
+            }
+        }
+
+        // Los duplicados contra la BD se detectan al cerrar cada bloque: se ordena por línea
+        result.getErrors().sort(Comparator.comparingLong(BulkImportErrorDTO::getLine));
+
+        log.info("Importación de {}: {} filas, {} insertadas, {} rechazadas",
+                resource, result.getRows(), result.getInserted(), result.getRejected());
+        return result;
+    }
+
+    /**
+     * Inserta un bloque en una transacción: una consulta para los códigos ya existentes y un
+     * {@code INSERT} por lotes para el resto.
+     */
+    private void flush(String resource, String table, String insertSql, List<Candidate> chunk,
+                       BulkImportResultDTO result) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+
+        Set<String> existing;
+        try {
+            existing = transactionTemplate.execute(status -> {
+                Set<String> found = existingCodes(table, chunk);
+                List<Object[]> batch = chunk.stream()
+                        .filter(c -> !found.contains(c.getCode()))
+                        .map(Candidate::getParams)
+                        .toList();
+                if (!batch.isEmpty()) {
+                    jdbcTemplate.batchUpdate(insertSql, batch);
+                }
+                return found;
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Alta concurrente del mismo código, o códigos que la BD considera iguales (mayúsculas):
+            // se repite fila a fila para saber cuáles fallan
+            log.warn("Bloque de {} rechazado por la BD, se reintenta fila a fila: {}", resource, e.getMessage());
+            insertRowByRow(resource, insertSql, chunk, result);
+            return;
+        }
+
+        for (Candidate candidate : chunk) {
+            if (existing.contains(candidate.getCode())) {
+                reject(result, candidate.getLine(), candidate.getCode(), duplicate(resource, candidate.getCode()));
+            } else {
+                result.setInserted(result.getInserted() + 1);
+            }
+        }
+    }
+
+    private void insertRowByRow(String resource, String insertSql, List<Candidate> chunk, BulkImportResultDTO result) {
+        for (Candidate candidate : chunk) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> jdbcTemplate.update(insertSql, candidate.getParams()));
+                result.setInserted(result.getInserted() + 1);
+            } catch (DuplicateKeyException e) {
+                reject(result, candidate.getLine(), candidate.getCode(), duplicate(resource, candidate.getCode()));
+            } catch (DataIntegrityViolationException e) {
+                reject(result, candidate.getLine(), candidate.getCode(), "Rejected by a database constraint");
+            }
+        }
+    }
+
+    private Set<String> existingCodes(String table, List<Candidate> chunk) {
+        List<String> codes = chunk.stream().map(Candidate::getCode).toList();
+        return new HashSet<>(namedParameterJdbcTemplate.queryForList(
+                "SELECT code FROM " + table + " WHERE code IN (:codes)", Map.of("codes", codes), String.class));
+    }
+
+    // =========================
+    // Utilidades
+    // =========================
+
+    private void reject(BulkImportResultDTO result, long line, String code, String message) {
+        result.setRejected(result.getRejected() + 1);
+        if (result.getErrors().size() < maxErrors) {
+            result.getErrors().add(new BulkImportErrorDTO(line, code, message));
+        } else {
+            result.setErrorsTruncated(true);
+        }
+    }
+
+    /** Mensajes de Bean Validation de la fila ({@code null} si es válida), en el idioma de la petición. */
+    private String validate(Object dto) {
+        Set<ConstraintViolation<Object>> violations = validator.validate(dto);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .sorted(Comparator.comparing(v -> v.getPropertyPath().toString()))
+                .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                .collect(Collectors.joining("; "));
+    }
+
+    private static String duplicate(String resource, String code) {
+        return "Duplicate " + resource + " (code=" + code + ")";
+    }
+
+    private static String trim(String value) {
+        return value != null ? value.trim() : null;
+    }
+
+    /** Convierte los valores de una fila en candidata a insertar (o en rechazo). */
+    @FunctionalInterface
+    private interface RowConverter {
+        Candidate convert(long line, String[] values);
+    }
+
+    /**
+     * Fila ya validada: código (para duplicados), parámetros del {@code INSERT} y error si se rechaza.
+     */
+    @lombok.Value
+    private static class Candidate {
+        long line;
+        String code;
+        Object[] params;
+        String error;
+    }
+}
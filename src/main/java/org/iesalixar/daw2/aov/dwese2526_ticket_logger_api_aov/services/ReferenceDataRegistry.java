@@ -0,0 +1,141 @@
+package org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.services;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.events.ReferenceDataChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Mantiene en memoria la instantánea de regiones y provincias ({@link ReferenceDataSnapshot}).
+ *
+ * <ul>
+ *   <li>Se construye al arrancar con una única consulta (regiones con sus provincias).</li>
+ *   <li>Tras el commit de un alta/modificación/baja ({@link ReferenceDataChangedEvent}) se
+ *       construye una nueva aparte y se sustituye de forma atómica: las lecturas en curso
+ *       siguen con la anterior y nunca ven un estado a medias.</li>
+ *   <li>Si la reconstrucción falla se conserva la anterior y se reintenta en segundo plano
+ *       ({@code reference-data.retry-interval}).</li>
+ * </ul>
+ *
+ * <p>La versión publicada se expone en la métrica {@code reference.data.snapshot.version}.
+ * La instantánea es local a cada instancia: los cambios hechos desde otro nodo solo se ven
+ * aquí tras el siguiente cambio local o un reinicio.</p>
+ */
+@Service
+public class ReferenceDataRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(ReferenceDataRegistry.class);
+
+    private static final String LOAD_SQL =
+            "SELECT r.id AS region_id, r.code AS region_code, r.name AS region_name, " +
+            "       p.id AS province_id, p.code AS province_code, p.name AS province_name " +
+            "FROM regions r LEFT JOIN provinces p ON p.region_id = r.id " +
+            "ORDER BY r.id, p.id";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final AtomicReference<ReferenceDataSnapshot> current = new AtomicReference<>();
+
+    /** Hay un cambio confirmado que todavía no está en la instantánea publicada. */
+    private final AtomicBoolean stale = new AtomicBoolean();
+
+    @PostConstruct
+    void init() {
+        rebuild();
+
+        Gauge.builder("reference.data.snapshot.version", this, r -> r.current().getVersion())
+                .description("Versión de la instantánea en memoria de regiones y provincias")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Instantánea vigente. Quien la use para atender una petición debe leerla una sola vez,
+     * para trabajar con una versión coherente aunque se publique otra entretanto.
+     */
+    public ReferenceDataSnapshot current() {
+        return current.get();
+    }
+
+    /**
+     * Reconstruye la instantánea cuando un cambio de regiones o provincias se ha confirmado en BD.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onReferenceDataChanged(ReferenceDataChangedEvent event) {
+        stale.set(true);
+        try {
+            rebuild();
+            log.debug("Instantánea de datos de referencia reconstruida tras cambio en {} id={}",
+                    event.getResource(), event.getId());
+        } catch (RuntimeException e) {
+            // El cambio ya está confirmado: no se propaga el error al cliente, se reintenta después
+            log.error("No se pudo reconstruir la instantánea de datos de referencia: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Reintenta la reconstrucción si la última falló.
+     */
+    @Scheduled(fixedDelayString = "${reference-data.retry-interval:PT30S}")
+    public void retryIfStale() {
+        if (!stale.get()) {
+            return;
+        }
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            log.error("Reintento fallido de la instantánea de datos de referencia: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Lee regiones y provincias y publica una nueva versión. Sincronizado para que dos
+     * reconstrucciones seguidas no publiquen fuera de orden una lectura más antigua.
+     */
+    synchronized void rebuild() {
+        // Se baja antes de leer: un cambio confirmado durante la lectura lo vuelve a marcar
+        stale.set(false);
+
+        ReferenceDataSnapshot snapshot;
+        try {
+            snapshot = load();
+        } catch (RuntimeException e) {
+            stale.set(true);
+            throw e;
+        }
+        current.set(snapshot);
+
+        log.info("Instantánea de datos de referencia v{}: {} regiones, {} provincias",
+                snapshot.getVersion(), snapshot.regionCount(), snapshot.provinceCount());
+    }
+
+    private ReferenceDataSnapshot load() {
+        ReferenceDataSnapshot.Builder builder = new ReferenceDataSnapshot.Builder();
+        jdbcTemplate.query(LOAD_SQL, rs -> {
+            long regionId = rs.getLong("region_id");
+            builder.region(regionId, rs.getString("region_code"), rs.getString("region_name"));
+
+            long provinceId = rs.getLong("province_id");
+            if (!rs.wasNull()) {
+                builder.province(provinceId, rs.getString("province_code"), rs.getString("province_name"), regionId);
+            }
+        });
+
+        ReferenceDataSnapshot previous = current.get();
+        return builder.build(previous == null ? 1L : previous.getVersion() + 1);
+    }
+}
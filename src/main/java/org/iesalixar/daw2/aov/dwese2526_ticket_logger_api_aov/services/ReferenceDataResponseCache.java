@@ -0,0 +1,155 @@
+package org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.dtos.SliceDTO;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.exceptions.ResourceNotFoundException;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.utils.RenderedJson;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.WebRequest;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Respuestas JSON de regiones y provincias serializadas una sola vez por versión de datos.
+ *
+ * <ul>
+ *   <li>Un {@code If-None-Match} con el ETag vigente (en claro o {@code -gz}) se responde con 304
+ *       antes de mirar la caché: ni siquiera tras un cambio de datos o con una combinación
+ *       página/orden no guardada se serializa o comprime un cuerpo que no se va a enviar.</li>
+ *   <li>Se guardan los bytes en claro y en gzip ({@link RenderedJson}): las peticiones
+ *       siguientes no mapean DTOs, no pasan por Jackson y no comprimen.</li>
+ *   <li>Se serializa con el {@link JsonMapper} de Spring MVC, así que el JSON es idéntico
+ *       al que generaría el controlador devolviendo el objeto.</li>
+ *   <li>La clave incluye la versión de la instantánea, y al ver una versión nueva se vacía
+ *       la caché entera: nunca se sirve un cuerpo de datos anteriores.</li>
+ *   <li>Acotada por número de combinaciones página/orden
+ *       ({@code reference-data.rendered-cache.maximum-size}); métricas
+ *       {@code cache.*{cache=reference.data.rendered}}.</li>
+ * </ul>
+ */
+@Service
+public class ReferenceDataResponseCache {
+
+    private static final String CACHE_NAME = "reference.data.rendered";
+
+    @Autowired
+    private ReferenceDataRegistry referenceDataRegistry;
+
+    @Autowired
+    private JsonMapper jsonMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${reference-data.rendered-cache.maximum-size:256}")
+    private long maximumSize;
+
+    private Cache<String, RenderedJson> cache;
+
+    /** Última versión de instantánea vista; al cambiar se vacía la caché. */
+    private final AtomicLong cachedVersion = new AtomicLong();
+
+    @PostConstruct
+    void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * Página de regiones ({@code GET /api/regions}).
+     */
+    public ResponseEntity<byte[]> regions(Pageable pageable, WebRequest request, CacheControl cacheControl) {
+        ReferenceDataSnapshot snapshot = referenceDataRegistry.current();
+        return respond(snapshot, "regions|" + key(pageable), () -> snapshot.regions(pageable),
+                request, cacheControl);
+    }
+
+    /**
+     * Página de regiones sin total ({@code GET /api/regions?withTotal=false}).
+     */
+    public ResponseEntity<byte[]> regionsSlice(Pageable pageable, WebRequest request, CacheControl cacheControl) {
+        ReferenceDataSnapshot snapshot = referenceDataRegistry.current();
+        return respond(snapshot, "regions-slice|" + key(pageable), () -> SliceDTO.of(snapshot.regions(pageable)),
+                request, cacheControl);
+    }
+
+    /**
+     * Detalle de una región con sus provincias ({@code GET /api/regions/{id}}). La existencia se
+     * comprueba antes que el ETag: un id inexistente da 404 aunque el ETag sea el vigente.
+     *
+     * @throws ResourceNotFoundException si no existe la región (no se guarda en caché).
+     */
+    public ResponseEntity<byte[]> regionDetail(Long id, WebRequest request, CacheControl cacheControl) {
+        ReferenceDataSnapshot snapshot = referenceDataRegistry.current();
+        if (!snapshot.containsRegion(id)) {
+            throw new ResourceNotFoundException("region", "id", id);
+        }
+        return respond(snapshot, "region|" + id, () -> snapshot.regionDetail(id)
+                        .orElseThrow(() -> new ResourceNotFoundException("region", "id", id)),
+                request, cacheControl);
+    }
+
+    /**
+     * Página de provincias ({@code GET /api/provinces}).
+     */
+    public ResponseEntity<byte[]> provinces(Pageable pageable, WebRequest request, CacheControl cacheControl) {
+        ReferenceDataSnapshot snapshot = referenceDataRegistry.current();
+        return respond(snapshot, "provinces|" + key(pageable), () -> snapshot.provinces(pageable),
+                request, cacheControl);
+    }
+
+    /**
+     * Página de provincias sin total ({@code GET /api/provinces?withTotal=false}).
+     */
+    public ResponseEntity<byte[]> provincesSlice(Pageable pageable, WebRequest request, CacheControl cacheControl) {
+        ReferenceDataSnapshot snapshot = referenceDataRegistry.current();
+        return respond(snapshot, "provinces-slice|" + key(pageable), () -> SliceDTO.of(snapshot.provinces(pageable)),
+                request, cacheControl);
+    }
+
+    /**
+     * 304 con solo comparar cabeceras si el cliente ya tiene el contenido; si no, el cuerpo
+     * guardado (serializándolo antes si no lo estaba).
+     */
+    private ResponseEntity<byte[]> respond(ReferenceDataSnapshot snapshot, String key, Supplier<Object> body,
+                                           WebRequest request, CacheControl cacheControl) {
+        ResponseEntity<byte[]> notModified = RenderedJson.notModified(snapshot.getETag(), request, cacheControl);
+        if (notModified != null) {
+            return notModified;
+        }
+        return get(snapshot, key, body).toResponse(request, cacheControl);
+    }
+
+    private RenderedJson get(ReferenceDataSnapshot snapshot, String key, Supplier<Object> body) {
+        long version = snapshot.getVersion();
+        long seen = cachedVersion.get();
+        if (version > seen && cachedVersion.compareAndSet(seen, version)) {
+            // Datos nuevos: los cuerpos anteriores ya no se van a pedir (su clave lleva la versión)
+            cache.invalidateAll();
+        }
+
+        return cache.get(version + "|" + key,
+                k -> RenderedJson.of(snapshot.getETag(), jsonMapper.writeValueAsBytes(body.get())));
+    }
+
+    private static String key(Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            return "unpaged|" + pageable.getSort();
+        }
+        return pageable.getPageNumber() + "|" + pageable.getPageSize() + "|" + pageable.getSort();
+    }
+}
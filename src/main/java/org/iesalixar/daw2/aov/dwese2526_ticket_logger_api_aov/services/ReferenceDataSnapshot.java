@@ -0,0 +1,599 @@
+package org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.services;
+
+import lombok.Value;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.dtos.CursorPageDTO;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.dtos.ItemsByIdDTO;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.dtos.PostalCodeResolutionDTO;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.dtos.ProvinceDTO;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.dtos.RegionDTO;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.dtos.RegionDetailDTO;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.utils.HashUtils;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.utils.PageCursor;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.utils.PrefixIndex;
+import org.springframework.data.core.PropertyReferenceException;
+import org.springframework.data.core.TypeInformation;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.text.CollationKey;
+import java.text.Collator;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * Instantánea inmutable de la jerarquía región → provincias.
+ *
+ * <ul>
+ *   <li>Las filas se guardan en objetos inmutables; los DTO se crean en cada lectura, así que
+ *       quien los reciba puede modificarlos sin afectar a la instantánea.</li>
+ *   <li>Los textos ({@code code}, {@code name}) llevan precalculada su {@link CollationKey} con
+ *       un {@link Collator} español de fuerza primaria (sin distinguir mayúsculas ni tildes),
+ *       para ordenar igual que la intercalación {@code _ci} de MariaDB.</li>
+ *   <li>Cada orden solicitado se calcula una vez y se reutiliza mientras viva la instantánea.</li>
+ *   <li>Los nombres se indexan para autocompletar ({@link PrefixIndex}), así que el índice se
+ *       reconstruye junto con la instantánea.</li>
+ *   <li>Los códigos de provincia de dos cifras forman una tabla de 100 posiciones para
+ *       resolver códigos postales ({@link #resolvePostalCode}).</li>
+ *   <li>{@link #getETag()} es una huella del contenido: sirve de ETag fuerte para las respuestas
+ *       generadas desde esta instantánea.</li>
+ * </ul>
+ *
+ * <p>Se construye con {@link Builder} y no se modifica nunca: {@code ReferenceDataRegistry}
+ * publica una nueva tras cada cambio.</p>
+ */
+public final class ReferenceDataSnapshot {
+
+    /** Máximo de órdenes distintos que se guardan por tabla (el resto se ordena en cada petición). */
+    private static final int MAX_CACHED_SORTS = 32;
+
+    /** Propiedades admitidas en la paginación por cursor (de regiones y de provincias). */
+    public static final Set<String> CURSOR_PROPERTIES = Set.of("id", "code", "name");
+
+    /** Máximo de resultados de autocompletado por petición. */
+    public static final int MAX_SUGGESTIONS = 50;
+
+    /** Máximo de ids en una consulta por varios ids. */
+    public static final int MAX_IDS = 500;
+
+    private final long version;
+    private final Instant builtAt;
+    private final String eTag;
+
+    /** Prototipo del {@link Collator} de las claves; se clona para usarlo (no es thread-safe). */
+    private final Collator collator;
+
+    /** Regiones y provincias ordenadas por id. */
+    private final List<RegionRow> regions;
+    private final List<ProvinceRow> provinces;
+
+    private final Map<Long, RegionRow> regionsById;
+    private final Map<Long, ProvinceRow> provincesById;
+
+    /** Autocompletado por nombre; sus resultados son posiciones en {@link #regions} / {@link #provinces}. */
+    private final PrefixIndex regionNames;
+    private final PrefixIndex provinceNames;
+
+    /**
+     * Provincia (y su región) de cada prefijo de código postal, 00-99, accedida directamente por
+     * posición; {@code null} si ninguna provincia tiene ese código de dos cifras.
+     */
+    private final ProvinceRow[] provincesByPostalPrefix = new ProvinceRow[100];
+    private final RegionRow[] regionsByPostalPrefix = new RegionRow[100];
+
+    private final ConcurrentMap<Sort, List<RegionRow>> sortedRegions = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Sort, List<ProvinceRow>> sortedProvinces = new ConcurrentHashMap<>();
+
+    private ReferenceDataSnapshot(long version, Collator collator,
+                                  List<RegionRow> regions, List<ProvinceRow> provinces) {
+        this.version = version;
+        this.collator = collator;
+        this.builtAt = Instant.now();
+        this.regions = List.copyOf(regions);
+        this.provinces = List.copyOf(provinces);
+
+        Map<Long, RegionRow> regionIndex = new LinkedHashMap<>();
+        regions.forEach(r -> regionIndex.put(r.getId(), r));
+        Map<Long, ProvinceRow> provinceIndex = new LinkedHashMap<>();
+        provinces.forEach(p -> provinceIndex.put(p.getId(), p));
+
+        this.regionsById = Map.copyOf(regionIndex);
+        this.provincesById = Map.copyOf(provinceIndex);
+        this.regionNames = PrefixIndex.of(this.regions.stream().map(RegionRow::getName).toList());
+        this.provinceNames = PrefixIndex.of(this.provinces.stream().map(ProvinceRow::getName).toList());
+
+        for (ProvinceRow p : this.provinces) {
+            int prefix = leadingDigits(p.getCode(), 2);
+            if (prefix >= 0) {
+                provincesByPostalPrefix[prefix] = p;
+                regionsByPostalPrefix[prefix] = regionsById.get(p.getRegionId());
+            }
+        }
+        this.eTag = fingerprint(this.regions);
+    }
+
+    /**
+     * Huella SHA-256 de todas las filas. Depende solo del contenido (no de {@link #version}, que
+     * vuelve a empezar en cada arranque y es distinta en cada instancia), así que el mismo dato
+     * produce el mismo ETag tras un reinicio o en otro nodo, y cualquier cambio produce otro.
+     */
+    private static String fingerprint(List<RegionRow> regions) {
+        StringBuilder content = new StringBuilder(4096);
+        for (RegionRow r : regions) {
+            content.append('R').append(r.getId()).append('\u0000').append(r.getCode())
+                    .append('\u0000').append(r.getName()).append('\n');
+            for (ProvinceRow p : r.getProvinces()) {
+                content.append('P').append(p.getId()).append('\u0000').append(p.getCode())
+                        .append('\u0000').append(p.getName()).append('\n');
+            }
+        }
+        // 128 bits en Base64 URL: suficiente para que dos contenidos distintos no coincidan
+        return "\"rd-" + HashUtils.sha256Base64Url(content.toString()).substring(0, 22) + "\"";
+    }
+
+    /** Versión de la instantánea; aumenta en cada reconstrucción. */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * ETag fuerte (entre comillas) del contenido de la instantánea.
+     */
+    public String getETag() {
+        return eTag;
+    }
+
+    /** Instante en que se construyó. */
+    public Instant getBuiltAt() {
+        return builtAt;
+    }
+
+    public int regionCount() {
+        return regions.size();
+    }
+
+    public int provinceCount() {
+        return provinces.size();
+    }
+
+    // =========================
+    // REGIONES
+    // =========================
+
+    /**
+     * Página de regiones con el orden y la paginación de {@code pageable}.
+     * Propiedades ordenables: {@code id}, {@code code}, {@code name}.
+     */
+    public Page<RegionDTO> regions(Pageable pageable) {
+        List<RegionRow> sorted = sorted(regions, pageable.getSort(), sortedRegions,
+                this::regionComparator, RegionDTO.class);
+        return page(sorted, pageable, ReferenceDataSnapshot::toRegionDTO);
+    }
+
+    /**
+     * Página de regiones por cursor: las {@code size} siguientes a {@code after} (o las primeras
+     * si es {@code null}), localizadas con una búsqueda binaria sobre la lista ya ordenada.
+     *
+     * @param order orden por {@code id}, {@code code} o {@code name} (ver {@link #CURSOR_PROPERTIES}).
+     */
+    public CursorPageDTO<RegionDTO> regionsAfter(Sort.Order order, PageCursor after, int size) {
+        List<RegionRow> sorted = sorted(regions, Sort.by(order), sortedRegions,
+                this::regionComparator, RegionDTO.class);
+        return scroll(sorted, order, after, size, ReferenceDataSnapshot::toRegionDTO);
+    }
+
+    /**
+     * Regiones con alguna palabra del nombre que empieza por {@code query}, sin distinguir
+     * mayúsculas ni tildes; primero las que coinciden al principio del nombre (ver {@link PrefixIndex}).
+     */
+    public List<RegionDTO> suggestRegions(String query, int limit) {
+        int[] hits = regionNames.search(query, limit);
+        List<RegionDTO> result = new ArrayList<>(hits.length);
+        for (int hit : hits) {
+            result.add(toRegionDTO(regions.get(hit)));
+        }
+        return result;
+    }
+
+    /**
+     * Regiones con los ids indicados, en el orden pedido; los que no existen van en {@code missingIds}.
+     */
+    public ItemsByIdDTO<RegionDTO> regionsByIds(List<Long> ids) {
+        return byIds(ids, regionsById, ReferenceDataSnapshot::toRegionDTO);
+    }
+
+    /** Indica si existe la región, sin crear el DTO. */
+    public boolean containsRegion(Long id) {
+        return id != null && regionsById.containsKey(id);
+    }
+
+    /**
+     * Detalle de una región con sus provincias (ordenadas por id).
+     */
+    public Optional<RegionDetailDTO> regionDetail(Long id) {
+        RegionRow row = id != null ? regionsById.get(id) : null;
+        if (row == null) {
+            return Optional.empty();
+        }
+
+        List<ProvinceDTO> provinceDTOs = new ArrayList<>(row.getProvinces().size());
+        for (ProvinceRow p : row.getProvinces()) {
+            // Igual que RegionMapper.toProvinceDTO: en el detalle no se repite el nombre de la región
+            provinceDTOs.add(new ProvinceDTO(p.getId(), p.getCode(), p.getName(), null));
+        }
+        return Optional.of(new RegionDetailDTO(row.getId(), row.getCode(), row.getName(), provinceDTOs));
+    }
+
+    // =========================
+    // PROVINCIAS
+    // =========================
+
+    /**
+     * Página de provincias con el orden y la paginación de {@code pageable}.
+     * Propiedades ordenables: {@code id}, {@code code}, {@code name},
+     * {@code regionName} / {@code region.name}, {@code region.id}.
+     */
+    public Page<ProvinceDTO> provinces(Pageable pageable) {
+        List<ProvinceRow> sorted = sorted(provinces, pageable.getSort(), sortedProvinces,
+                this::provinceComparator, ProvinceDTO.class);
+        return page(sorted, pageable, ReferenceDataSnapshot::toProvinceDTO);
+    }
+
+    /**
+     * Página de provincias por cursor (ver {@link #regionsAfter}).
+     */
+    public CursorPageDTO<ProvinceDTO> provincesAfter(Sort.Order order, PageCursor after, int size) {
+        List<ProvinceRow> sorted = sorted(provinces, Sort.by(order), sortedProvinces,
+                this::provinceComparator, ProvinceDTO.class);
+        return scroll(sorted, order, after, size, ReferenceDataSnapshot::toProvinceDTO);
+    }
+
+    /**
+     * Provincias por prefijo del nombre (ver {@link #suggestRegions}).
+     */
+    public List<ProvinceDTO> suggestProvinces(String query, int limit) {
+        int[] hits = provinceNames.search(query, limit);
+        List<ProvinceDTO> result = new ArrayList<>(hits.length);
+        for (int hit : hits) {
+            result.add(toProvinceDTO(provinces.get(hit)));
+        }
+        return result;
+    }
+
+    /**
+     * Provincias con los ids indicados, en el orden pedido (ver {@link #regionsByIds}).
+     */
+    public ItemsByIdDTO<ProvinceDTO> provincesByIds(List<Long> ids) {
+        return byIds(ids, provincesById, ReferenceDataSnapshot::toProvinceDTO);
+    }
+
+    /** Indica si existe la provincia, sin crear el DTO. */
+    public boolean containsProvince(Long id) {
+        return id != null && provincesById.containsKey(id);
+    }
+
+    /**
+     * Provincia por id (con el nombre de su región).
+     */
+    public Optional<ProvinceDTO> province(Long id) {
+        ProvinceRow row = id != null ? provincesById.get(id) : null;
+        return Optional.ofNullable(row).map(ReferenceDataSnapshot::toProvinceDTO);
+    }
+
+    // =========================
+    // CÓDIGOS POSTALES
+    // =========================
+
+    /**
+     * Provincia y región de un código postal: una lectura de array por las dos primeras cifras,
+     * sin búsquedas ni BD. Nunca devuelve {@code null}; si no se resuelve, {@code resolved=false}.
+     */
+    public PostalCodeResolutionDTO resolvePostalCode(String postalCode) {
+        int prefix = leadingDigits(postalCode, 5);
+        ProvinceRow province = prefix >= 0 ? provincesByPostalPrefix[prefix] : null;
+        if (province == null) {
+            return PostalCodeResolutionDTO.unresolved(postalCode);
+        }
+
+        RegionRow region = regionsByPostalPrefix[prefix];
+        return new PostalCodeResolutionDTO(postalCode, true,
+                province.getId(), province.getCode(), province.getName(),
+                region.getId(), region.getCode(), region.getName());
+    }
+
+    /** Indica si el texto tiene formato de código postal español (exactamente 5 cifras). */
+    public static boolean isPostalCode(String postalCode) {
+        return leadingDigits(postalCode, 5) >= 0;
+    }
+
+    /**
+     * Dos primeras cifras como número 0-99 si {@code text} tiene exactamente {@code length}
+     * caracteres y todos son cifras; -1 en otro caso.
+     */
+    private static int leadingDigits(String text, int length) {
+        if (text == null || text.length() != length) {
+            return -1;
+        }
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+        }
+        return (text.charAt(0) - '0') * 10 + (text.charAt(1) - '0');
+    }
+
+    // =========================
+    // ORDENACIÓN Y PAGINACIÓN
+    // =========================
+
+    private <T> List<T> sorted(List<T> rows, Sort sort, ConcurrentMap<Sort, List<T>> cache,
+                               Function<Sort.Order, Comparator<T>> comparators, Class<?> dtoType) {
+        if (sort.isUnsorted()) {
+            return rows;
+        }
+
+        List<T> cached = cache.get(sort);
+        if (cached != null) {
+            return cached;
+        }
+
+        Comparator<T> comparator = null;
+        for (Sort.Order order : sort) {
+            Comparator<T> byProperty = comparators.apply(order);
+            if (byProperty == null) {
+                // Mismo error que daba Spring Data al ordenar por una propiedad inexistente
+                throw new PropertyReferenceException(order.getProperty(), TypeInformation.of(dtoType), List.of());
+            }
+            if (order.isDescending()) {
+                byProperty = byProperty.reversed();
+            }
+            comparator = comparator == null ? byProperty : comparator.thenComparing(byProperty);
+        }
+
+        // "rows" ya está ordenada por id y List.sort es estable: los empates quedan por id
+        List<T> result = new ArrayList<>(rows);
+        result.sort(comparator);
+        result = List.copyOf(result);
+
+        if (cache.size() < MAX_CACHED_SORTS) {
+            cache.putIfAbsent(sort, result);
+        }
+        return result;
+    }
+
+    private Comparator<RegionRow> regionComparator(Sort.Order order) {
+        return switch (order.getProperty()) {
+            case "id" -> Comparator.comparingLong(RegionRow::getId);
+            case "code" -> Comparator.comparing(RegionRow::getCodeKey);
+            case "name" -> Comparator.comparing(RegionRow::getNameKey);
+            default -> null;
+        };
+    }
+
+    private Comparator<ProvinceRow> provinceComparator(Sort.Order order) {
+        return switch (order.getProperty()) {
+            case "id" -> Comparator.comparingLong(ProvinceRow::getId);
+            case "code" -> Comparator.comparing(ProvinceRow::getCodeKey);
+            case "name" -> Comparator.comparing(ProvinceRow::getNameKey);
+            case "regionName", "region.name" -> Comparator.comparing(ProvinceRow::getRegionNameKey);
+            case "region.id" -> Comparator.comparingLong(ProvinceRow::getRegionId);
+            default -> null;
+        };
+    }
+
+    private <T extends Row, D> CursorPageDTO<D> scroll(List<T> sorted, Sort.Order order, PageCursor after,
+                                                       int size, Function<T, D> mapper) {
+        int from = after == null ? 0 : seek(sorted, order, after);
+        int to = Math.min(from + size, sorted.size());
+
+        List<D> content = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            content.add(mapper.apply(sorted.get(i)));
+        }
+
+        boolean hasNext = to < sorted.size();
+        String nextCursor = null;
+        if (hasNext) {
+            T last = sorted.get(to - 1);
+            nextCursor = PageCursor.after(order, keyOf(last, order.getProperty()), last.getId()).encode();
+        }
+        return new CursorPageDTO<>(content, size, hasNext, nextCursor);
+    }
+
+    /**
+     * Primera posición cuya fila va detrás del cursor. La lista está ordenada por la propiedad
+     * (en la dirección pedida) y, a igualdad, por id ascendente (la ordenación es estable
+     * sobre la lista por id), así que basta una búsqueda binaria con ese mismo criterio.
+     * Funciona aunque la fila del cursor se haya borrado entretanto.
+     */
+    private int seek(List<? extends Row> sorted, Sort.Order order, PageCursor after) {
+        String property = order.getProperty();
+        CollationKey afterKey = property.equals("id") ? null
+                : ((Collator) collator.clone()).getCollationKey(after.getKey());
+        long afterId = after.getId();
+
+        int low = 0;
+        int high = sorted.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            Row row = sorted.get(mid);
+
+            int cmp = switch (property) {
+                case "code" -> row.getCodeKey().compareTo(afterKey);
+                case "name" -> row.getNameKey().compareTo(afterKey);
+                default -> 0;
+            };
+            if (order.isDescending()) {
+                cmp = -cmp;
+            }
+            if (cmp == 0) {
+                long rowId = row.getId();
+                cmp = property.equals("id") && order.isDescending()
+                        ? Long.compare(afterId, rowId)
+                        : Long.compare(rowId, afterId);
+            }
+
+            if (cmp <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static String keyOf(Row row, String property) {
+        return switch (property) {
+            case "code" -> row.getCode();
+            case "name" -> row.getName();
+            default -> Long.toString(row.getId());
+        };
+    }
+
+    /** Una búsqueda en el índice por id para cada id distinto, respetando el orden de la petición. */
+    private static <T, D> ItemsByIdDTO<D> byIds(List<Long> ids, Map<Long, T> index, Function<T, D> mapper) {
+        Set<Long> distinct = new LinkedHashSet<>(ids);
+        List<D> content = new ArrayList<>(distinct.size());
+        List<Long> missing = new ArrayList<>();
+        for (Long id : distinct) {
+            T row = index.get(id);
+            if (row != null) {
+                content.add(mapper.apply(row));
+            } else {
+                missing.add(id);
+            }
+        }
+        return new ItemsByIdDTO<>(content, missing);
+    }
+
+    private static <T, D> Page<D> page(List<T> rows, Pageable pageable, Function<T, D> mapper) {
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(rows.stream().map(mapper).toList(), pageable, rows.size());
+        }
+
+        long offset = pageable.getOffset();
+        if (offset >= rows.size()) {
+            return new PageImpl<>(List.of(), pageable, rows.size());
+        }
+
+        int from = (int) offset;
+        int to = Math.min(from + pageable.getPageSize(), rows.size());
+        List<D> content = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            content.add(mapper.apply(rows.get(i)));
+        }
+        return new PageImpl<>(content, pageable, rows.size());
+    }
+
+    private static RegionDTO toRegionDTO(RegionRow row) {
+        return new RegionDTO(row.getId(), row.getCode(), row.getName());
+    }
+
+    private static ProvinceDTO toProvinceDTO(ProvinceRow row) {
+        return new ProvinceDTO(row.getId(), row.getCode(), row.getName(), row.getRegionName());
+    }
+
+    // =========================
+    // FILAS INMUTABLES
+    // =========================
+
+    /** Campos comunes de regiones y provincias usados por la paginación por cursor. */
+    interface Row {
+        long getId();
+        String getCode();
+        String getName();
+        CollationKey getCodeKey();
+        CollationKey getNameKey();
+    }
+
+    @Value
+    static class RegionRow implements Row {
+        long id;
+        String code;
+        String name;
+        CollationKey codeKey;
+        CollationKey nameKey;
+        /** Provincias de la región ordenadas por id. */
+        List<ProvinceRow> provinces;
+    }
+
+    @Value
+    static class ProvinceRow implements Row {
+        long id;
+        String code;
+        String name;
+        long regionId;
+        String regionName;
+        CollationKey codeKey;
+        CollationKey nameKey;
+        CollationKey regionNameKey;
+    }
+
+    /**
+     * Construye una instantánea a partir de las filas leídas de BD. No es thread-safe
+     * (el {@link Collator} tampoco lo es): se usa desde un único hilo y se descarta.
+     */
+    public static final class Builder {
+
+        private final Collator collator;
+        private final Map<Long, RegionRow> regions = new LinkedHashMap<>();
+        private final Map<Long, List<ProvinceRow>> provincesByRegion = new LinkedHashMap<>();
+
+        public Builder() {
+            collator = Collator.getInstance(Locale.of("es", "ES"));
+            collator.setStrength(Collator.PRIMARY);
+        }
+
+        /** Añade una región; si ya estaba (una fila por provincia) no hace nada. */
+        public Builder region(long id, String code, String name) {
+            if (regions.containsKey(id)) {
+                return this;
+            }
+            regions.put(id, new RegionRow(id, code, name,
+                    collator.getCollationKey(code), collator.getCollationKey(name), List.of()));
+            provincesByRegion.putIfAbsent(id, new ArrayList<>());
+            return this;
+        }
+
+        /** Añade una provincia; su región debe haberse añadido antes. */
+        public Builder province(long id, String code, String name, long regionId) {
+            RegionRow region = regions.get(regionId);
+            if (region == null) {
+                throw new IllegalStateException("Provincia " + id + " con región desconocida " + regionId);
+            }
+            provincesByRegion.get(regionId).add(new ProvinceRow(id, code, name, regionId, region.getName(),
+                    collator.getCollationKey(code), collator.getCollationKey(name), region.getNameKey()));
+            return this;
+        }
+
+        public ReferenceDataSnapshot build(long version) {
+            List<RegionRow> regionRows = new ArrayList<>(regions.size());
+            List<ProvinceRow> provinceRows = new ArrayList<>();
+
+            for (RegionRow region : regions.values()) {
+                List<ProvinceRow> children = new ArrayList<>(provincesByRegion.get(region.getId()));
+                children.sort(Comparator.comparingLong(ProvinceRow::getId));
+                regionRows.add(new RegionRow(region.getId(), region.getCode(), region.getName(),
+                        region.getCodeKey(), region.getNameKey(), List.copyOf(children)));
+                provinceRows.addAll(children);
+            }
+
+            regionRows.sort(Comparator.comparingLong(RegionRow::getId));
+            provinceRows.sort(Comparator.comparingLong(ProvinceRow::getId));
+            return new ReferenceDataSnapshot(version, collator, regionRows, provinceRows);
+        }
+    }
+}
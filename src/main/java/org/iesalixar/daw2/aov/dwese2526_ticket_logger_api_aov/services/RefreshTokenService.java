@@ -0,0 +1,14 @@
+package org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.services;
+
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.dtos.RefreshRotationDTO;
+
+public interface RefreshTokenService {
+
+    String issue(String email, String requestIp, String userAgent);
+
+    RefreshRotationDTO rotate(String refreshToken, String requestIp, String userAgent);
+
+    void revoke(String refreshToken);
+
+    void purgeOldTokens();
+}
@@ -0,0 +1,157 @@
+package org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.services;
+
+import jakarta.transaction.Transactional;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.dtos.RefreshRotationDTO;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.entities.RefreshToken;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.entities.User;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.repositories.RefreshTokenRepository;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.repositories.UserRepository;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.utils.HashUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.stereotype.Service;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Gestión de refresh tokens: permiten obtener un nuevo access token sin volver a verificar la
+ * contraseña (BCrypt) en cada caducidad del JWT.
+ *
+ * <ul>
+ *   <li>El token es un valor aleatorio de 256 bits; en BD solo se guarda su SHA-256 (hex),
+ *       igual que en {@code password_reset_tokens}, y se localiza por ese hash (índice único).</li>
+ *   <li><b>Rotación:</b> cada canje marca el token como usado y emite otro de la misma familia.</li>
+ *   <li><b>Detección de reutilización:</b> presentar un token ya rotado indica que se ha filtrado;
+ *       se revoca la familia completa y el usuario debe volver a autenticarse.</li>
+ * </ul>
+ */
+@Service
+@Transactional
+public class RefreshTokenServiceImpl implements RefreshTokenService {
+
+    private static final Logger log = LoggerFactory.getLogger(RefreshTokenServiceImpl.class);
+
+    private static final int TOKEN_BYTES = 32;
+
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Value("${jwt.refresh-token.ttl:P14D}")
+    private Duration ttl;
+
+    /**
+     * Emite un refresh token para un usuario recién autenticado (inicia una familia nueva).
+     *
+     * @return token en claro (solo para el cliente).
+     */
+    @Override
+    public String issue(String email, String requestIp, String userAgent) {
+        User user = userRepository.findByEmail(email)
+                .orElseThrow(() -> new BadCredentialsException("Usuario no encontrado"));
+
+        return createToken(user, UUID.randomUUID().toString(), requestIp, userAgent);
+    }
+
+    /**
+     * Canjea un refresh token por otro de la misma familia y devuelve los roles actuales del usuario.
+     *
+     * <p>Las revocaciones se confirman aunque la llamada termine con {@link BadCredentialsException}.</p>
+     *
+     * @throws BadCredentialsException si el token no existe, ha caducado, está revocado, ya se usó
+     *                                 (reutilización) o el usuario está desactivado/bloqueado.
+     */
+    @Override
+    @Transactional(dontRollbackOn = BadCredentialsException.class)
+    public RefreshRotationDTO rotate(String refreshToken, String requestIp, String userAgent) {
+        RefreshToken current = refreshTokenRepository.findByTokenHash(HashUtils.sha256Hex(refreshToken))
+                .orElseThrow(() -> new BadCredentialsException("Refresh token inválido"));
+
+        if (current.isRevoked() || current.isExpired()) {
+            throw new BadCredentialsException("Refresh token caducado o revocado");
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+
+        // Rotación atómica: si otra petición ya lo canjeó, esto es una reutilización
+        if (refreshTokenRepository.markUsed(current.getId(), now) == 0) {
+            int revoked = refreshTokenRepository.revokeFamily(current.getFamilyId(), now);
+            log.warn("Reutilización de refresh token detectada (userId={}, family={}): {} tokens revocados",
+                    current.getUser().getId(), current.getFamilyId(), revoked);
+            throw new BadCredentialsException("Refresh token reutilizado");
+        }
+
+        User user = current.getUser();
+        if (!user.isActive() || !user.isAccountNonLocked()) {
+            refreshTokenRepository.revokeFamily(current.getFamilyId(), now);
+            throw new BadCredentialsException("Usuario desactivado o bloqueado");
+        }
+
+        List<String> roles = user.getRoles().stream()
+                .map(role -> role.getName()) // ROLE_ADMIN, ROLE_USER...
+                .collect(Collectors.toList());
+
+        String next = createToken(user, current.getFamilyId(), requestIp, userAgent);
+
+        return new RefreshRotationDTO(user.getEmail(), roles, next);
+    }
+
+    /**
+     * Revoca la familia completa del refresh token (cierre de sesión). Un token desconocido se ignora.
+     */
+    @Override
+    public void revoke(String refreshToken) {
+        refreshTokenRepository.findByTokenHash(HashUtils.sha256Hex(refreshToken))
+                .ifPresent(token -> refreshTokenRepository.revokeFamily(token.getFamilyId(), LocalDateTime.now()));
+    }
+
+    /**
+     * Limpieza diaria de tokens caducados o revocados.
+     * Los tokens usados pero vigentes se conservan para poder detectar su reutilización.
+     */
+    @Override
+    @Scheduled(cron = "${jwt.refresh-token.cleanup-cron:0 30 3 * * *}")
+    public void purgeOldTokens() {
+        int deleted = refreshTokenRepository.deleteOldTokens(LocalDateTime.now());
+        log.info("Limpieza de refresh tokens: {} eliminados", deleted);
+    }
+
+    private String createToken(User user, String familyId, String requestIp, String userAgent) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        secureRandom.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        LocalDateTime now = LocalDateTime.now();
+
+        RefreshToken entity = new RefreshToken();
+        entity.setUser(user);
+        entity.setTokenHash(HashUtils.sha256Hex(token));
+        entity.setFamilyId(familyId);
+        entity.setCreatedAt(now);
+        entity.setExpiresAt(now.plus(ttl));
+        entity.setRequestIp(requestIp);
+        entity.setUserAgent(truncate(userAgent, 255));
+
+        refreshTokenRepository.save(entity);
+
+        return token;
+    }
+
+    private static String truncate(String value, int maxLength) {
+        return value != null && value.length() > maxLength ? value.substring(0, maxLength) : value;
+    }
+}
@@ -1,16 +1,44 @@
 package org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.services;
 
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.dtos.CursorPageDTO;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.dtos.ItemsByIdDTO;
 import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.dtos.RegionCreateDTO;
 import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.dtos.RegionDTO;
 import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.dtos.RegionDetailDTO;
 import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.dtos.RegionUpdateDTO;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.dtos.SliceDTO;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.util.List;
+
 public interface RegionService {
 
     Page<RegionDTO> list(Pageable pageable);
 
+    /**
+     * Listado sin total ({@code ?withTotal=false}): contenido y si hay página siguiente.
+     */
+    SliceDTO<RegionDTO> slice(Pageable pageable);
+
+    /**
+     * Listado por cursor: {@code cursor} vacío para la primera página; el orden
+     * ({@code id}, {@code code} o {@code name}) se toma de {@code pageable} y después viaja en el cursor.
+     */
+    CursorPageDTO<RegionDTO> scroll(String cursor, Pageable pageable);
+
+    /**
+     * Autocompletado: hasta {@code limit} regiones cuyo nombre tiene una palabra que empieza por
+     * {@code q} (sin distinguir mayúsculas ni tildes), mejores coincidencias primero.
+     */
+    List<RegionDTO> suggest(String q, int limit);
+
+    /**
+     * Varias regiones por id en una sola llamada, en el orden pedido; los ids que no existen se
+     * devuelven en {@code missingIds}.
+     */
+    ItemsByIdDTO<RegionDTO> findByIds(List<Long> ids);
+
     RegionUpdateDTO getForEdit(Long id);
 
     RegionDTO create(RegionCreateDTO dto);
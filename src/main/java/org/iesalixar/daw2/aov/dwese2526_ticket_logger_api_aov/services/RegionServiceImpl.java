@@ -1,20 +1,30 @@
 package org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.services;
 
 import jakarta.transaction.Transactional;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.dtos.CursorPageDTO;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.dtos.ItemsByIdDTO;
 import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.dtos.RegionDetailDTO;
 import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.dtos.RegionCreateDTO;
 import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.dtos.RegionDTO;
 import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.dtos.RegionUpdateDTO;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.dtos.SliceDTO;
 import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.entities.Region;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.events.ReferenceDataChangedEvent;
 import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.exceptions.DuplicateResourceException;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.exceptions.InvalidRequestParameterException;
 import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.exceptions.ResourceNotFoundException;
 import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.mappers.RegionMapper;
 import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.repositories.RegionRepository;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.utils.PageCursor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+
 /**
  * Implementación de la lógica de negocio (casos de uso) para el CRUD de {@link Region}.
  *
@@ -30,6 +40,10 @@ import org.springframework.stereotype.Service;
  *       para que la capa web (MVC o REST) decida cómo presentarlas
  *       (mensaje flash, redirect, HTTP 404/409...).</li>
  * </ul>
+ *
+ * <p>El listado y el detalle se sirven desde la instantánea en memoria
+ * ({@link ReferenceDataRegistry}), sin consultar la BD; cada alta, modificación o baja
+ * publica un {@link ReferenceDataChangedEvent} para reconstruirla tras el commit.</p>
  */
 @Service
 @Transactional
@@ -38,17 +52,92 @@ public class RegionServiceImpl implements RegionService {
     @Autowired
     private RegionRepository regionRepository;
 
+    @Autowired
+    private ReferenceDataRegistry referenceDataRegistry;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     /**
      * Devuelve una lista paginada de regiones.
      *
+     * <p>SUPPORTS: no abre transacción (ni pide conexión al pool) porque no accede a BD.</p>
+     *
      * @param pageable parámetros de paginación y ordenación
      * @return página de {@link RegionDTO}
      */
     @Override
+    @Transactional(Transactional.TxType.SUPPORTS)
     public Page<RegionDTO> list(Pageable pageable) {
-        return regionRepository
-                .findAll(pageable)
-                .map(RegionMapper::toDTO);
+        return referenceDataRegistry.current().regions(pageable);
+    }
+
+    /**
+     * Devuelve una página de regiones sin total. Se recorta de la instantánea en memoria
+     * igual que {@link #list(Pageable)}, así que tampoco aquí hay {@code COUNT}.
+     *
+     * @param pageable parámetros de paginación y ordenación
+     * @return contenido y si hay página siguiente
+     */
+    @Override
+    @Transactional(Transactional.TxType.SUPPORTS)
+    public SliceDTO<RegionDTO> slice(Pageable pageable) {
+        return SliceDTO.of(referenceDataRegistry.current().regions(pageable));
+    }
+
+    /**
+     * Devuelve la página de regiones siguiente al cursor, buscándola en la instantánea en memoria.
+     *
+     * @param cursor   cursor recibido ({@code null} o vacío para la primera página)
+     * @param pageable tamaño de página y orden inicial
+     * @return página por cursor de {@link RegionDTO}
+     */
+    @Override
+    @Transactional(Transactional.TxType.SUPPORTS)
+    public CursorPageDTO<RegionDTO> scroll(String cursor, Pageable pageable) {
+        PageCursor after = cursor == null || cursor.isBlank() ? null : PageCursor.decode(cursor, "region");
+        Sort.Order order = PageCursor.singleOrder(after != null ? Sort.by(after.order()) : pageable.getSort(),
+                "region", ReferenceDataSnapshot.CURSOR_PROPERTIES);
+
+        return referenceDataRegistry.current().regionsAfter(order, after, pageable.getPageSize());
+    }
+
+    /**
+     * Autocompletado por nombre desde el índice en memoria de la instantánea.
+     *
+     * @param q     texto escrito (sin distinguir mayúsculas ni tildes)
+     * @param limit máximo de resultados (1 a {@link ReferenceDataSnapshot#MAX_SUGGESTIONS})
+     * @return regiones, mejores coincidencias primero
+     * @throws InvalidRequestParameterException si {@code limit} está fuera de rango
+     */
+    @Override
+    @Transactional(Transactional.TxType.SUPPORTS)
+    public List<RegionDTO> suggest(String q, int limit) {
+        if (limit < 1 || limit > ReferenceDataSnapshot.MAX_SUGGESTIONS) {
+            throw new InvalidRequestParameterException("region", "limit", limit,
+                    "Expected 1.." + ReferenceDataSnapshot.MAX_SUGGESTIONS);
+        }
+        return referenceDataRegistry.current().suggestRegions(q, limit);
+    }
+
+    /**
+     * Varias regiones por id desde la instantánea en memoria (sin consulta a BD).
+     *
+     * @param ids ids en el orden en que se quieren recibir (como mucho {@link ReferenceDataSnapshot#MAX_IDS})
+     * @return regiones encontradas en ese orden y los ids que no existen
+     * @throws InvalidRequestParameterException si no hay ids, alguno está vacío o se supera el máximo
+     */
+    @Override
+    @Transactional(Transactional.TxType.SUPPORTS)
+    public ItemsByIdDTO<RegionDTO> findByIds(List<Long> ids) {
+        if (ids == null || ids.isEmpty() || ids.size() > ReferenceDataSnapshot.MAX_IDS) {
+            throw new InvalidRequestParameterException("region", "ids", ids,
+                    "Expected 1.." + ReferenceDataSnapshot.MAX_IDS + " ids");
+        }
+        if (ids.contains(null)) {
+            throw new InvalidRequestParameterException("region", "ids", ids, "Empty id");
+        }
+        return referenceDataRegistry.current().regionsByIds(ids);
     }
 
     /**
@@ -82,6 +171,7 @@ public class RegionServiceImpl implements RegionService {
 
         Region region = RegionMapper.toEntity(dto);
         region = regionRepository.save(region);
+        eventPublisher.publishEvent(new ReferenceDataChangedEvent("region", region.getId()));
         return RegionMapper.toDTO(region);
     }
 
@@ -106,6 +196,7 @@ public class RegionServiceImpl implements RegionService {
         RegionMapper.copyToExistingEntity(dto, region);
 
         region = regionRepository.save(region);
+        eventPublisher.publishEvent(new ReferenceDataChangedEvent("region", region.getId()));
         return RegionMapper.toDTO(region);
     }
 
@@ -123,6 +214,7 @@ public class RegionServiceImpl implements RegionService {
         }
 
         regionRepository.deleteById(id);
+        eventPublisher.publishEvent(new ReferenceDataChangedEvent("region", id));
     }
 
     /**
@@ -133,12 +225,11 @@ public class RegionServiceImpl implements RegionService {
      * @throws ResourceNotFoundException si no existe la región
      */
     @Override
+    @Transactional(Transactional.TxType.SUPPORTS)
     public RegionDetailDTO getDetail(Long id) {
-        Region region = regionRepository.findByIdWithProvinces(id)
+        return referenceDataRegistry.current().regionDetail(id)
                 .orElseThrow(() ->
                         new ResourceNotFoundException("region", "id", id)
                 );
-
-        return RegionMapper.toDetailDTO(region);
     }
 }
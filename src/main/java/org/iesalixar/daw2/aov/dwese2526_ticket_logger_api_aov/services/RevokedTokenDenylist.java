@@ -0,0 +1,170 @@
+package org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.services;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.utils.BloomFilter;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.utils.JwtUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Lista en memoria de JWT revocados (claim {@code jti}) antes de su caducidad.
+ *
+ * <ul>
+ *   <li>Los revocados se agrupan en <b>generaciones</b> por ventana de caducidad
+ *       ({@code security.jwt-denylist.window}): un token revocado va a la generación de su {@code exp}.
+ *       Una generación se descarta entera cuando termina su ventana, porque todos sus tokens ya
+ *       habrían caducado; la memoria queda acotada por los tokens aún vigentes.</li>
+ *   <li>Cada generación tiene un filtro de Bloom y un conjunto exacto. La comprobación por
+ *       petición es una consulta al Bloom sin reservar memoria; solo si da positivo (token revocado
+ *       o falso positivo) se confirma contra el conjunto exacto.</li>
+ * </ul>
+ *
+ * <p>La lista es local a cada instancia: una revocación solo se aplica en el nodo que la recibe.</p>
+ */
+@Service
+public class RevokedTokenDenylist {
+
+    private static final Logger log = LoggerFactory.getLogger(RevokedTokenDenylist.class);
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${security.jwt-denylist.window:PT15M}")
+    private Duration window;
+
+    @Value("${security.jwt-denylist.expected-revocations:10000}")
+    private int expectedRevocationsPerWindow;
+
+    @Value("${security.jwt-denylist.false-positive-probability:0.01}")
+    private double falsePositiveProbability;
+
+    private long windowMillis;
+
+    /** Anillo de generaciones indexado por ventana de caducidad. */
+    private AtomicReferenceArray<Generation> generations;
+
+    @PostConstruct
+    void init() {
+        windowMillis = window.toMillis();
+
+        // Ventanas que puede abarcar un token vigente (exp en [ahora, ahora + vida]) + margen
+        int slots = (int) (JwtUtil.JWT_EXPIRATION / windowMillis) + 3;
+        generations = new AtomicReferenceArray<>(slots);
+
+        Gauge.builder("jwt.denylist.size", this, RevokedTokenDenylist::size)
+                .description("JWT revocados aún vigentes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Revoca un token hasta su caducidad. Los tokens ya caducados o sin {@code jti} se ignoran.
+     */
+    public void revoke(String jti, Instant expiresAt) {
+        if (jti == null || expiresAt == null || !expiresAt.isAfter(Instant.now())) {
+            return;
+        }
+
+        long windowIndex = expiresAt.toEpochMilli() / windowMillis;
+        generationFor(windowIndex).add(jti);
+
+        log.debug("JWT revocado (jti={}, exp={})", jti, expiresAt);
+    }
+
+    /**
+     * Indica si el token está revocado. Caso habitual (no revocado): una consulta al Bloom.
+     */
+    public boolean isRevoked(String jti, Instant expiresAt) {
+        if (jti == null || expiresAt == null) {
+            return false;
+        }
+
+        long windowIndex = expiresAt.toEpochMilli() / windowMillis;
+        Generation generation = generations.get(slot(windowIndex));
+
+        return generation != null
+                && generation.windowIndex == windowIndex
+                && generation.bloom.mightContain(jti)
+                && generation.exact.contains(jti);
+    }
+
+    /**
+     * Descarta las generaciones cuya ventana ya terminó (todos sus tokens han caducado).
+     */
+    @Scheduled(fixedDelayString = "${security.jwt-denylist.window:PT15M}")
+    public void purgeExpired() {
+        long currentWindow = System.currentTimeMillis() / windowMillis;
+
+        for (int i = 0; i < generations.length(); i++) {
+            Generation generation = generations.get(i);
+            if (generation != null && generation.windowIndex < currentWindow) {
+                generations.compareAndSet(i, generation, null);
+            }
+        }
+    }
+
+    private Generation generationFor(long windowIndex) {
+        int slot = slot(windowIndex);
+
+        while (true) {
+            Generation current = generations.get(slot);
+            if (current != null && current.windowIndex == windowIndex) {
+                return current;
+            }
+
+            // Hueco libre u ocupado por una ventana antigua (ya caducada): se sustituye
+            Generation created = new Generation(windowIndex,
+                    new BloomFilter(expectedRevocationsPerWindow, falsePositiveProbability));
+            if (generations.compareAndSet(slot, current, created)) {
+                return created;
+            }
+        }
+    }
+
+    private int slot(long windowIndex) {
+        return (int) (windowIndex % generations.length());
+    }
+
+    private long size() {
+        long total = 0;
+        for (int i = 0; i < generations.length(); i++) {
+            Generation generation = generations.get(i);
+            if (generation != null) {
+                total += generation.exact.size();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Revocados cuya caducidad cae en una misma ventana.
+     */
+    private static final class Generation {
+
+        private final long windowIndex;
+        private final BloomFilter bloom;
+        private final Set<String> exact = ConcurrentHashMap.newKeySet();
+
+        private Generation(long windowIndex, BloomFilter bloom) {
+            this.windowIndex = windowIndex;
+            this.bloom = bloom;
+        }
+
+        private void add(String jti) {
+            // Primero el conjunto exacto: cuando el Bloom dé positivo, la confirmación ya existe
+            exact.add(jti);
+            bloom.put(jti);
+        }
+    }
+}
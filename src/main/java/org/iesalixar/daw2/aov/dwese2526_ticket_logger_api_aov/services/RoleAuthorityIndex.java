@@ -0,0 +1,148 @@
+package org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.services;
+
+import jakarta.annotation.PostConstruct;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.entities.Role;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.repositories.RoleRepository;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.utils.VerifiedToken;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Índice de roles para el formato compacto de JWT: los roles viajan como una máscara de bits
+ * (claim {@code rm}) en lugar de una lista de nombres.
+ *
+ * <ul>
+ *   <li>Bit {@code id - 1} de la máscara = rol con ese id en la tabla {@code roles}
+ *       (ids 1..64; con los roles actuales la máscara es un número de un dígito).</li>
+ *   <li>Cada máscara distinta se traduce una sola vez a una lista inmutable de authorities, que
+ *       se comparte entre todas las peticiones: decodificar no reserva memoria.</li>
+ *   <li>Los tokens con el formato anterior (claim {@code roles}) también obtienen listas
+ *       compartidas, indexadas por la lista de nombres.</li>
+ * </ul>
+ *
+ * <p>Los roles se cargan al arrancar; la API no permite crearlos ni modificarlos.</p>
+ */
+@Service
+public class RoleAuthorityIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(RoleAuthorityIndex.class);
+
+    /** Máscaras cacheadas en array (sin boxing) si los ids de rol caben en estos bits. */
+    private static final int MAX_ARRAY_BITS = 16;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    /** Nombre técnico -> bit. */
+    private Map<String, Integer> bitByName = Map.of();
+
+    /** Bit -> authority (null si no hay rol con ese id). */
+    private GrantedAuthority[] authorityByBit = new GrantedAuthority[0];
+
+    /** Lista compartida por máscara (índice = máscara). */
+    private AtomicReferenceArray<List<GrantedAuthority>> byMask = new AtomicReferenceArray<>(0);
+
+    /** Lista compartida por lista de nombres (tokens con el formato anterior). */
+    private final ConcurrentMap<List<String>, List<GrantedAuthority>> byNames = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void loadAll() {
+        load(roleRepository.findAll());
+    }
+
+    /**
+     * Construye el índice a partir de los roles indicados. Los roles con id fuera de 1..64
+     * no se codifican: los tokens de usuarios con esos roles usan el formato de lista.
+     */
+    public void load(Collection<Role> roles) {
+        Map<String, Integer> names = new HashMap<>();
+        int maxBit = -1;
+
+        for (Role role : roles) {
+            long id = role.getId();
+            if (id >= 1 && id <= 64) {
+                names.put(role.getName(), (int) id - 1);
+                maxBit = Math.max(maxBit, (int) id - 1);
+            }
+        }
+
+        GrantedAuthority[] authorities = new GrantedAuthority[maxBit + 1];
+        names.forEach((name, bit) -> authorities[bit] = new SimpleGrantedAuthority(name));
+
+        this.bitByName = Map.copyOf(names);
+        this.authorityByBit = authorities;
+        this.byMask = new AtomicReferenceArray<>(maxBit < MAX_ARRAY_BITS ? 1 << (maxBit + 1) : 0);
+        this.byNames.clear();
+
+        log.info("Índice de roles para JWT cargado: {}", bitByName);
+    }
+
+    /**
+     * Codifica los roles como máscara, o {@code null} si alguno no está en el índice
+     * (en ese caso el token se emite con la lista de nombres).
+     */
+    public Long encode(Collection<String> roleNames) {
+        long mask = 0L;
+        for (String name : roleNames) {
+            Integer bit = bitByName.get(name);
+            if (bit == null) {
+                return null;
+            }
+            mask |= 1L << bit;
+        }
+        return mask;
+    }
+
+    /**
+     * Authorities del token verificado, como lista inmutable compartida.
+     */
+    public List<GrantedAuthority> authoritiesOf(VerifiedToken token) {
+        Long mask = token.getRoleMask();
+        if (mask != null) {
+            return authoritiesForMask(mask);
+        }
+        return byNames.computeIfAbsent(token.getRoles(),
+                names -> names.stream().<GrantedAuthority>map(SimpleGrantedAuthority::new).toList());
+    }
+
+    /**
+     * Authorities de una máscara. Las máscaras se construyen una vez y se reutilizan.
+     */
+    public List<GrantedAuthority> authoritiesForMask(long mask) {
+        AtomicReferenceArray<List<GrantedAuthority>> cache = byMask;
+        if (mask >= 0 && mask < cache.length()) {
+            List<GrantedAuthority> cached = cache.get((int) mask);
+            if (cached == null) {
+                cached = buildAuthorities(mask);
+                cache.set((int) mask, cached); // Carrera benigna: ambas listas son iguales
+            }
+            return cached;
+        }
+        return buildAuthorities(mask);
+    }
+
+    private List<GrantedAuthority> buildAuthorities(long mask) {
+        GrantedAuthority[] authorities = authorityByBit;
+        List<GrantedAuthority> result = new ArrayList<>(Long.bitCount(mask));
+
+        for (int bit = 0; bit < authorities.length; bit++) {
+            if ((mask & (1L << bit)) != 0 && authorities[bit] != null) {
+                result.add(authorities[bit]);
+            }
+        }
+        return List.copyOf(result);
+    }
+}
@@ -0,0 +1,194 @@
+package org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.services;
+
+import jakarta.annotation.PostConstruct;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.utils.TabularFormat;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.utils.TabularWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Exportación completa de regiones, provincias y usuarios en NDJSON o CSV, en streaming.
+ *
+ * <ul>
+ *   <li>Una sola consulta por exportación, leída con un cursor de solo avance y
+ *       {@code app.export.fetch-size} filas por viaje: el driver no carga el resultado entero.</li>
+ *   <li>Se lee con JDBC, sin entidades ni contexto de persistencia, y cada fila se escribe en
+ *       la respuesta ({@link TabularWriter}) y se descarta: la memoria no crece con el número
+ *       de filas.</li>
+ *   <li>La cabecera de la respuesta y la primera fila se envían en cuanto llegan, sin esperar
+ *       al final de la consulta.</li>
+ * </ul>
+ *
+ * <p>El CSV de regiones y provincias tiene las columnas que espera la importación masiva
+ * ({@link ReferenceDataBulkImporter}), así que se puede volver a cargar tal cual.</p>
+ */
+@Service
+public class TableExporter {
+
+    private static final Logger log = LoggerFactory.getLogger(TableExporter.class);
+
+    private static final List<String> REGION_COLUMNS = List.of("id", "code", "name");
+
+    private static final String REGIONS_SQL = "SELECT id, code, name FROM regions ORDER BY id";
+
+    private static final List<String> PROVINCE_COLUMNS =
+            List.of("id", "code", "name", "regionId", "regionCode", "regionName");
+
+    private static final String PROVINCES_SQL =
+            "SELECT p.id, p.code, p.name, r.id AS region_id, r.code AS region_code, r.name AS region_name " +
+            "FROM provinces p JOIN regions r ON r.id = p.region_id " +
+            "ORDER BY p.id";
+
+    private static final List<String> USER_COLUMNS = List.of("id", "email", "active", "accountNonLocked",
+            "lastPasswordChange", "passwordExpiresAt", "failedLoginAttempts", "emailVerified",
+            "mustChangePassword", "roles");
+
+    /** Una fila por usuario y rol, ordenada por usuario: los roles se agrupan al leer. */
+    private static final String USERS_SQL =
+            "SELECT u.id, u.email, u.active, u.account_non_locked, u.last_password_change, " +
+            "       u.password_expires_at, u.failed_login_attempts, u.email_verified, " +
+            "       u.must_change_password, ro.name AS role " +
+            "FROM users u " +
+            "LEFT JOIN user_roles ur ON ur.user_id = u.id " +
+            "LEFT JOIN roles ro ON ro.id = ur.role_id " +
+            "ORDER BY u.id, ro.name";
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Value("${app.export.fetch-size:1000}")
+    private int fetchSize;
+
+    /** Plantilla propia con tamaño de lote: no cambia el de la {@link JdbcTemplate} compartida. */
+    private JdbcTemplate streamingJdbcTemplate;
+
+    @PostConstruct
+    void init() {
+        streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        streamingJdbcTemplate.setFetchSize(fetchSize);
+    }
+
+    public StreamingResponseBody regions(TabularFormat format) {
+        return out -> {
+            TabularWriter writer = new TabularWriter(out, format, REGION_COLUMNS);
+            long rows = stream(REGIONS_SQL, writer, rs -> writer.writeRow(
+                    rs.getLong("id"), rs.getString("code"), rs.getString("name")));
+            log.info("Exportadas {} regiones ({})", rows, format);
+        };
+    }
+
+    public StreamingResponseBody provinces(TabularFormat format) {
+        return out -> {
+            TabularWriter writer = new TabularWriter(out, format, PROVINCE_COLUMNS);
+            long rows = stream(PROVINCES_SQL, writer, rs -> writer.writeRow(
+                    rs.getLong("id"), rs.getString("code"), rs.getString("name"),
+                    rs.getLong("region_id"), rs.getString("region_code"), rs.getString("region_name")));
+            log.info("Exportadas {} provincias ({})", rows, format);
+        };
+    }
+
+    /**
+     * Usuarios con sus roles (mismos campos que {@code UserDTO}); nunca incluye el hash de la contraseña.
+     */
+    public StreamingResponseBody users(TabularFormat format) {
+        return out -> {
+            TabularWriter writer = new TabularWriter(out, format, USER_COLUMNS);
+            UserRowMerger merger = new UserRowMerger(writer);
+            stream(USERS_SQL, writer, merger::accept);
+            merger.finish();
+            writer.flush();
+            log.info("Exportados {} usuarios ({})", merger.users, format);
+        };
+    }
+
+    // =========================
+    // Lectura por cursor
+    // =========================
+
+    @FunctionalInterface
+    private interface RowWriter {
+        void write(ResultSet rs) throws SQLException;
+    }
+
+    /**
+     * Recorre la consulta escribiendo cada fila; vacía el búfer tras la primera para que el
+     * cliente empiece a recibir datos mientras sigue la lectura.
+     *
+     * @return filas leídas.
+     */
+    private long stream(String sql, TabularWriter writer, RowWriter rowWriter) {
+        long[] rows = {0};
+        streamingJdbcTemplate.query(sql, rs -> {
+            rowWriter.write(rs);
+            if (++rows[0] == 1) {
+                writer.flush();
+            }
+        });
+        writer.flush();
+        return rows[0];
+    }
+
+    /**
+     * Junta las filas consecutivas de un mismo usuario (una por rol) en una sola línea.
+     * Solo guarda el usuario en curso.
+     */
+    private static final class UserRowMerger {
+
+        private final TabularWriter writer;
+        private Object[] current;
+        private List<String> roles;
+        private long users;
+
+        UserRowMerger(TabularWriter writer) {
+            this.writer = writer;
+        }
+
+        void accept(ResultSet rs) throws SQLException {
+            long id = rs.getLong("id");
+            if (current == null || (long) current[0] != id) {
+                finish();
+                roles = new ArrayList<>(2);
+                current = new Object[]{
+                        id,
+                        rs.getString("email"),
+                        rs.getBoolean("active"),
+                        rs.getBoolean("account_non_locked"),
+                        toLocalDateTime(rs.getTimestamp("last_password_change")),
+                        toLocalDateTime(rs.getTimestamp("password_expires_at")),
+                        rs.getObject("failed_login_attempts") != null ? rs.getInt("failed_login_attempts") : null,
+                        rs.getBoolean("email_verified"),
+                        rs.getBoolean("must_change_password"),
+                        roles
+                };
+            }
+            String role = rs.getString("role");
+            if (role != null) {
+                roles.add(role);
+            }
+        }
+
+        void finish() {
+            if (current != null) {
+                writer.writeRow(current);
+                users++;
+                current = null;
+            }
+        }
+
+        private static Object toLocalDateTime(Timestamp timestamp) {
+            return timestamp != null ? timestamp.toLocalDateTime() : null;
+        }
+    }
+}
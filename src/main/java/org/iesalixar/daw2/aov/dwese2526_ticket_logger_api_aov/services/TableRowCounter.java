@@ -0,0 +1,88 @@
+package org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.services;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.events.UserChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Número de filas de {@code users} mantenido en memoria, para dar el total de los listados
+ * paginados sin lanzar un {@code SELECT COUNT(*)} en cada página.
+ *
+ * <ul>
+ *   <li>Se cuenta una vez al arrancar.</li>
+ *   <li>Las altas y bajas lo ajustan tras el commit ({@link UserChangedEvent}), así que una
+ *       transacción deshecha no lo descuadra.</li>
+ *   <li>Se vuelve a contar cada {@code app.row-counts.resync-interval} para recoger cambios
+ *       hechos fuera de esta instancia (otro nodo, scripts SQL).</li>
+ * </ul>
+ *
+ * <p>Regiones y provincias no lo necesitan: su total sale de la instantánea en memoria
+ * ({@link ReferenceDataRegistry}). Métrica: {@code table.rows{table=users}}.</p>
+ */
+@Service
+public class TableRowCounter {
+
+    private static final Logger log = LoggerFactory.getLogger(TableRowCounter.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final AtomicLong users = new AtomicLong();
+
+    @PostConstruct
+    void init() {
+        resync();
+
+        Gauge.builder("table.rows", users, AtomicLong::get)
+                .tag("table", "users")
+                .description("Filas de la tabla según el contador en memoria")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Total de usuarios.
+     */
+    public long users() {
+        return users.get();
+    }
+
+    /**
+     * Ajusta el contador cuando un alta o una baja de usuario se ha confirmado en BD.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        if (event.getPreviousEmail() == null) {
+            users.incrementAndGet();
+        } else if (event.isDeleted()) {
+            users.decrementAndGet();
+        }
+    }
+
+    /**
+     * Recuenta la tabla y corrige el contador.
+     */
+    @Scheduled(fixedDelayString = "${app.row-counts.resync-interval:PT5M}",
+            initialDelayString = "${app.row-counts.resync-interval:PT5M}")
+    public void resync() {
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users", Long.class);
+        long previous = users.getAndSet(count != null ? count : 0L);
+
+        if (previous != users.get()) {
+            log.debug("Contador de users corregido: {} -> {}", previous, users.get());
+        }
+    }
+}
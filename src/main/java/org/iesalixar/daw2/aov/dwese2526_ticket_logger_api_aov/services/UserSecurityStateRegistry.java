@@ -0,0 +1,162 @@
+package org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.services;
+
+import jakarta.annotation.PostConstruct;
+import lombok.Value;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.dtos.UserSecurityStateDTO;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.events.AccountLockChangedEvent;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.events.UserChangedEvent;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.repositories.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Registro en memoria del estado de seguridad de cada usuario, usado por el modo de
+ * autenticación sin estado ({@code jwt.auth.stateless=true}).
+ *
+ * <p>Para cada email guarda:</p>
+ * <ul>
+ *   <li>{@code enabled}: copia de {@code active}.</li>
+ *   <li>{@code lockedUntil}: copia de {@code account_non_locked}, o el fin de un bloqueo temporal
+ *       por intentos fallidos ({@link AccountLockChangedEvent}).</li>
+ *   <li>{@code securityVersion}: {@code security_changed_at} en segundos, el último cambio de
+ *       email, roles, {@code active} o bloqueo. Los tokens emitidos antes ({@code iat} anterior)
+ *       dejan de aceptarse, así esos cambios invalidan los JWT ya emitidos sin consultar la BD
+ *       por petición; editar otros campos del usuario no los afecta.</li>
+ * </ul>
+ *
+ * <p>La versión se guarda en BD con el cambio, así que un reinicio o una instancia nueva
+ * aceptan los tokens vigentes y siguen rechazando los anteriores a un cambio.</p>
+ *
+ * <p>Se carga con una única consulta al arrancar y se refresca con {@link UserChangedEvent}
+ * tras el commit y con {@link AccountLockChangedEvent} al bloquearse una cuenta. Un email desconocido se consulta una vez y queda registrado.
+ * El registro es local a cada instancia: los cambios hechos en otro nodo solo se ven
+ * aquí cuando el usuario no estaba todavía registrado.</p>
+ */
+@Service
+public class UserSecurityStateRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(UserSecurityStateRegistry.class);
+
+    /** Estado para usuarios que ya no existen: ningún token es válido. */
+    private static final SecurityState MISSING =
+            new SecurityState(false, AccountLockChangedEvent.LOCKED_FOREVER, Long.MAX_VALUE);
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final ConcurrentMap<String, SecurityState> states = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void loadAll() {
+        List<UserSecurityStateDTO> all = userRepository.findAllSecurityStates();
+        for (UserSecurityStateDTO dto : all) {
+            states.put(dto.getEmail(), toState(dto));
+        }
+        log.info("Registro de estado de seguridad inicializado con {} usuarios", all.size());
+    }
+
+    /**
+     * Indica si un token ya verificado (firma y caducidad) puede autenticar al usuario.
+     *
+     * @param email    subject del token.
+     * @param issuedAt claim {@code iat} del token.
+     * @return {@code true} si el usuario existe, está activo, no está bloqueado y el token
+     *         se emitió después de su último cambio de seguridad.
+     */
+    public boolean isTokenAllowed(String email, Instant issuedAt) {
+        SecurityState state = states.computeIfAbsent(email, this::loadState);
+
+        if (!state.isEnabled() || System.currentTimeMillis() < state.getLockedUntil()) {
+            return false;
+        }
+
+        // "iat" tiene resolución de segundos: se compara a esa granularidad
+        return issuedAt != null && issuedAt.getEpochSecond() >= state.getSecurityVersion();
+    }
+
+    /**
+     * Actualiza el registro cuando un alta/modificación/baja de usuario se ha confirmado en BD.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        if (event.getPreviousEmail() != null && !event.getPreviousEmail().equals(event.getEmail())) {
+            // Baja o cambio de email: ningún token del email anterior vuelve a ser válido
+            states.put(event.getPreviousEmail(), MISSING);
+        }
+
+        if (!event.isDeleted()) {
+            // La versión solo avanza si el cambio afecta a los tokens (ver UserServiceImpl.update)
+            states.put(event.getEmail(), new SecurityState(event.isActive(),
+                    lockedUntil(event.isAccountNonLocked()), securityVersion(event.getSecurityChangedAt())));
+        }
+
+        log.debug("Estado de seguridad actualizado (previousEmail={}, email={})",
+                event.getPreviousEmail(), event.getEmail());
+    }
+
+    /**
+     * Aplica un bloqueo por intentos fallidos (o su vencimiento). Al bloquear también sube la
+     * versión: los tokens emitidos antes no vuelven a aceptarse aunque el bloqueo venza.
+     * Un email aún no registrado se cargará de BD, donde el cambio ya está guardado.
+     */
+    @EventListener
+    public void onAccountLockChanged(AccountLockChangedEvent event) {
+        states.computeIfPresent(event.getEmail(), (email, state) -> event.isLocked()
+                ? new SecurityState(state.isEnabled(), event.getLockedUntil(),
+                        securityVersion(event.getSecurityChangedAt()))
+                : new SecurityState(state.isEnabled(), 0L, state.getSecurityVersion()));
+
+        log.debug("Bloqueo de cuenta aplicado al estado de seguridad (email={}, lockedUntil={})",
+                event.getEmail(), event.getLockedUntil());
+    }
+
+    private SecurityState loadState(String email) {
+        return userRepository.findSecurityStateByEmail(email)
+                .map(UserSecurityStateRegistry::toState)
+                .orElse(MISSING);
+    }
+
+    private static SecurityState toState(UserSecurityStateDTO dto) {
+        return new SecurityState(dto.isActive(), lockedUntil(dto.isAccountNonLocked()),
+                securityVersion(dto.getSecurityChangedAt()));
+    }
+
+    /**
+     * {@code security_changed_at} en epoch seconds, como el {@code iat}; 0 si nunca ha cambiado.
+     * Se interpreta en la zona de la JVM, la misma con la que JDBC/JPA lo escriben.
+     */
+    private static long securityVersion(LocalDateTime securityChangedAt) {
+        return securityChangedAt == null ? 0L : securityChangedAt.atZone(ZoneId.systemDefault()).toEpochSecond();
+    }
+
+    /**
+     * Bloqueo según {@code account_non_locked}. Un bloqueo temporal cargado de BD se trata como
+     * indefinido hasta que {@code LoginAttemptService} publica su vencimiento.
+     */
+    private static long lockedUntil(boolean accountNonLocked) {
+        return accountNonLocked ? 0L : AccountLockChangedEvent.LOCKED_FOREVER;
+    }
+
+    /**
+     * Estado inmutable de un usuario; se sustituye completo en cada cambio.
+     */
+    @Value
+    private static class SecurityState {
+        boolean enabled;
+        /** Epoch millis de fin del bloqueo; 0 si no está bloqueada. */
+        long lockedUntil;
+        long securityVersion;
+    }
+}
@@ -6,8 +6,23 @@ import org.springframework.data.domain.Pageable;
 
 public interface UserService {
 
+    /**
+     * Página de usuarios; el total sale del contador en memoria ({@link TableRowCounter}),
+     * no de un {@code COUNT} por petición.
+     */
     Page<UserDTO> list(Pageable pageable);
 
+    /**
+     * Listado sin total ({@code ?withTotal=false}): lee una fila de más para saber si hay siguiente.
+     */
+    SliceDTO<UserDTO> slice(Pageable pageable);
+
+    /**
+     * Listado por cursor (keyset): {@code cursor} vacío para la primera página; el orden
+     * (por {@code email} o {@code id}) se toma de {@code pageable} y después viaja en el cursor.
+     */
+    CursorPageDTO<UserDTO> scroll(String cursor, Pageable pageable);
+
     UserUpdateDTO getForEdit(Long id);
 
     void create(UserCreateDTO dto);
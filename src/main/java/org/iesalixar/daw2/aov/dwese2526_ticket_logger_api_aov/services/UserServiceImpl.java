@@ -4,36 +4,102 @@ import jakarta.transaction.Transactional;
 import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.dtos.*;
 import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.entities.Role;
 import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.entities.User;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.events.UserChangedEvent;
 import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.exceptions.DuplicateResourceException;
 import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.exceptions.ResourceNotFoundException;
 import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.mappers.UserMapper;
 import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.repositories.RoleRepository;
 import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.repositories.UserRepository;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.utils.PageCursor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional
 public class UserServiceImpl implements UserService {
 
+    /** Propiedades con índice único por las que se puede paginar con cursor. */
+    private static final Set<String> CURSOR_PROPERTIES = Set.of("id", "email");
+
     @Autowired
     private UserRepository userRepository;
 
     @Autowired
     private RoleRepository roleRepository;
 
+    @Autowired
+    private TableRowCounter tableRowCounter;
+
+    /**
+     * Publica {@link UserChangedEvent} para que los componentes con estado en memoria
+     * (registro de seguridad, cachés) se refresquen tras el commit.
+     */
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     @Override
     public Page<UserDTO> list(Pageable pageable) {
-        return userRepository
-                .findAll(pageable)
+        Slice<User> slice = userRepository.findAllBy(pageable);
+
+        // La fila de más del Slice dice si esta es la última página: ahí el total es exacto;
+        // en las demás se toma el contador, sin bajar de lo que ya se sabe que existe
+        long seen = (pageable.isPaged() ? pageable.getOffset() : 0) + slice.getNumberOfElements();
+        long total = slice.hasNext() ? Math.max(tableRowCounter.users(), seen + 1) : seen;
+
+        return new PageImpl<>(slice.getContent(), pageable, total)
                 .map(UserMapper::toDTO);
     }
 
+    @Override
+    public SliceDTO<UserDTO> slice(Pageable pageable) {
+        return SliceDTO.of(userRepository.findAllBy(pageable).map(UserMapper::toDTO));
+    }
+
+    @Override
+    public CursorPageDTO<UserDTO> scroll(String cursor, Pageable pageable) {
+        PageCursor after = cursor == null || cursor.isBlank() ? null : PageCursor.decode(cursor, "user");
+        Sort.Order order = PageCursor.singleOrder(
+                after != null ? Sort.by(after.order()) : pageable.getSort(), "user", CURSOR_PROPERTIES);
+        boolean byId = order.getProperty().equals("id");
+
+        ScrollPosition position;
+        if (after == null) {
+            position = ScrollPosition.keyset();
+        } else if (byId) {
+            position = ScrollPosition.forward(Map.of("id", after.getId()));
+        } else {
+            position = ScrollPosition.forward(Map.of("email", after.getKey(), "id", after.getId()));
+        }
+
+        Window<User> window = userRepository.findBy(position, Sort.by(order), Limit.of(pageable.getPageSize()));
+        List<UserDTO> content = window.getContent().stream().map(UserMapper::toDTO).toList();
+
+        String nextCursor = null;
+        if (window.hasNext() && !content.isEmpty()) {
+            User last = window.getContent().getLast();
+            String key = byId ? last.getId().toString() : last.getEmail();
+            nextCursor = PageCursor.after(order, key, last.getId()).encode();
+        }
+        return new CursorPageDTO<>(content, pageable.getPageSize(), window.hasNext(), nextCursor);
+    }
+
     @Override
     public UserUpdateDTO getForEdit(Long id) {
         User user = userRepository.findById(id)
@@ -57,6 +123,10 @@ public class UserServiceImpl implements UserService {
 
         User user = UserMapper.toEntity(dto, roles);
         userRepository.save(user);
+
+        eventPublisher.publishEvent(
+                UserChangedEvent.created(user.getEmail(), user.isActive(), user.isAccountNonLocked())
+        );
     }
 
     @Override
@@ -71,6 +141,11 @@ public class UserServiceImpl implements UserService {
                         new ResourceNotFoundException("user", "id", dto.getId())
                 );
 
+        String previousEmail = user.getEmail();
+        boolean previousActive = user.isActive();
+        boolean previousAccountNonLocked = user.isAccountNonLocked();
+        Set<Long> previousRoleIds = roleIds(user.getRoles());
+
         UserMapper.copyToExistingEntity(dto, user);
 
         Set<Role> roles = new HashSet<>(
@@ -78,15 +153,32 @@ public class UserServiceImpl implements UserService {
         );
         user.setRoles(roles);
 
+        // Solo lo que va en el JWT o decide si se acepta invalida los tokens ya emitidos;
+        // al segundo, como el "iat" con el que se compara
+        if (!previousEmail.equals(user.getEmail())
+                || previousActive != user.isActive()
+                || previousAccountNonLocked != user.isAccountNonLocked()
+                || !previousRoleIds.equals(roleIds(roles))) {
+            user.setSecurityChangedAt(LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS));
+        }
+
         userRepository.save(user);
+
+        eventPublisher.publishEvent(
+                UserChangedEvent.updated(previousEmail, user.getEmail(),
+                        user.isActive(), user.isAccountNonLocked(), user.getSecurityChangedAt())
+        );
     }
 
     @Override
     public void delete(Long id) {
-        if (!userRepository.existsById(id)) {
-            throw new ResourceNotFoundException("user", "id", id);
-        }
-        userRepository.deleteById(id);
+        User user = userRepository.findById(id)
+                .orElseThrow(() ->
+                        new ResourceNotFoundException("user", "id", id)
+                );
+        userRepository.delete(user);
+
+        eventPublisher.publishEvent(UserChangedEvent.deleted(user.getEmail()));
     }
 
     @Override
@@ -98,4 +190,8 @@ public class UserServiceImpl implements UserService {
 
         return UserMapper.toDetailDTO(user);
     }
+
+    private static Set<Long> roleIds(Set<Role> roles) {
+        return roles.stream().map(Role::getId).collect(Collectors.toSet());
+    }
 }
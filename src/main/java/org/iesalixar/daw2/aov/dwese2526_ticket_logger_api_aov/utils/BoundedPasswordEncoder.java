@@ -0,0 +1,114 @@
+package org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.utils;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.exceptions.ServiceOverloadedException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * {@link PasswordEncoder} que ejecuta el hashing y la verificación (BCrypt) en un pool dedicado
+ * y acotado, en lugar de en los hilos de Tomcat.
+ *
+ * <ul>
+ *   <li>El pool tiene un número fijo de hilos, así que una avalancha de logins no puede ocupar
+ *       todos los núcleos y dejar sin CPU a los endpoints baratos ({@code /api/regions}...).</li>
+ *   <li>La cola es acotada: si está llena, o la tarea no termina en el tiempo máximo, se lanza
+ *       {@link ServiceOverloadedException} (503 + {@code Retry-After}) en vez de encolar sin límite.</li>
+ * </ul>
+ *
+ * <p>Métricas: {@code password.hashing.queue.depth} (gauge), {@code password.hashing.duration}
+ * (timer, {@code op=encode|matches}) y {@code password.hashing.rejected} (contador).</p>
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+    private static final String RESOURCE = "passwordHashing";
+
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final Duration timeout;
+    private final long retryAfterSeconds;
+
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+    private final Counter rejected;
+
+    public BoundedPasswordEncoder(PasswordEncoder delegate, ThreadPoolExecutor executor,
+                                  Duration timeout, Duration retryAfter, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.executor = executor;
+        this.timeout = timeout;
+        this.retryAfterSeconds = Math.max(1, retryAfter.toSeconds());
+
+        Gauge.builder("password.hashing.queue.depth", executor, e -> e.getQueue().size())
+                .description("Tareas de hashing de contraseñas en espera")
+                .register(meterRegistry);
+        Gauge.builder("password.hashing.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Hilos del pool de hashing ocupados")
+                .register(meterRegistry);
+
+        this.encodeTimer = Timer.builder("password.hashing.duration").tag("op", "encode").register(meterRegistry);
+        this.matchesTimer = Timer.builder("password.hashing.duration").tag("op", "matches").register(meterRegistry);
+        this.rejected = Counter.builder("password.hashing.rejected").register(meterRegistry);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return submit(() -> encodeTimer.record(() -> delegate.encode(rawPassword)));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return submit(() -> matchesTimer.record(() -> delegate.matches(rawPassword, encodedPassword)));
+    }
+
+    /**
+     * No calcula ningún hash (solo inspecciona el prefijo): se ejecuta en el hilo llamante.
+     */
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    private <T> T submit(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            // Cola llena: se rechaza en el acto
+            rejected.increment();
+            throw new ServiceOverloadedException(RESOURCE, retryAfterSeconds);
+        }
+
+        try {
+            return future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            rejected.increment();
+            throw new ServiceOverloadedException(RESOURCE, retryAfterSeconds);
+
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new ServiceOverloadedException(RESOURCE, retryAfterSeconds);
+
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Error al calcular el hash de la contraseña", cause);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * {@link BCryptPasswordEncoder} con un coste (work factor) objetivo fijo, calculado al arrancar
+ * para el hardware actual, y que pide rehash de cualquier hash con un coste <b>distinto</b>
+ * (mayor o menor) al objetivo.
+ *
+ * <p>{@code BCryptPasswordEncoder} solo actualiza hashes de coste menor; aquí
+ * también se rebajan los de coste mayor, para que el CPU por login sea el mismo en todos
+ * los usuarios y en todos los nodos.</p>
+ */
+public class CalibratedBCryptPasswordEncoder extends BCryptPasswordEncoder {
+
+    private static final Logger log = LoggerFactory.getLogger(CalibratedBCryptPasswordEncoder.class);
+
+    /** $2a$12$..., $2b$10$..., $2y$11$... */
+    private static final Pattern BCRYPT_PREFIX = Pattern.compile("^\\$2[aby]?\\$(\\d{2})\\$");
+
+    private final int strength;
+
+    public CalibratedBCryptPasswordEncoder(int strength) {
+        super(strength);
+        this.strength = strength;
+    }
+
+    /**
+     * Elige el mayor coste entre {@code minStrength} y {@code maxStrength} cuyo hash tarda como
+     * mucho {@code budget} en esta máquina. Cada +1 de coste duplica el tiempo, así que se mide
+     * de menor a mayor y se para en cuanto se supera el presupuesto.
+     */
+    public static CalibratedBCryptPasswordEncoder calibrate(Duration budget, int minStrength, int maxStrength) {
+        // Calentamiento (JIT) para no penalizar la primera medida
+        new BCryptPasswordEncoder(minStrength).encode("calibration");
+
+        int chosen = minStrength;
+        for (int cost = minStrength; cost <= maxStrength; cost++) {
+            long start = System.nanoTime();
+            new BCryptPasswordEncoder(cost).encode("calibration");
+            Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+            log.debug("BCrypt coste {}: {} ms", cost, elapsed.toMillis());
+
+            if (elapsed.compareTo(budget) > 0) {
+                break;
+            }
+            chosen = cost;
+        }
+
+        log.info("BCrypt calibrado: coste {} (presupuesto {} ms por hash)", chosen, budget.toMillis());
+        return new CalibratedBCryptPasswordEncoder(chosen);
+    }
+
+    public int getStrength() {
+        return strength;
+    }
+
+    /**
+     * {@code true} si el hash almacenado tiene un coste distinto al objetivo
+     * (la clase base ya descarta hashes nulos o vacíos).
+     */
+    @Override
+    protected boolean upgradeEncodingNonNull(String encodedPassword) {
+        Matcher matcher = BCRYPT_PREFIX.matcher(encodedPassword);
+        if (!matcher.find()) {
+            return false; // No es BCrypt: matches() ya lo rechaza
+        }
+
+        return Integer.parseInt(matcher.group(1)) != strength;
+    }
+}
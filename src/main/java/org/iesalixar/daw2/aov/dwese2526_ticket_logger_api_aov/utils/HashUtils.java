@@ -0,0 +1,43 @@
+package org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HexFormat;
+
+/**
+ * Utilidades de hash para tokens (nunca se guardan ni se indexan en claro).
+ */
+public final class HashUtils {
+
+    private HashUtils() {
+    }
+
+    /**
+     * Calcula el SHA-256 de una cadena (UTF-8).
+     */
+    public static byte[] sha256(String value) {
+        try {
+            return MessageDigest.getInstance("SHA-256")
+                    .digest(value.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 es obligatorio en cualquier JVM
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    /**
+     * SHA-256 en Base64 URL sin relleno (43 caracteres). Útil como clave compacta de caché.
+     */
+    public static String sha256Base64Url(String value) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(sha256(value));
+    }
+
+    /**
+     * SHA-256 en hexadecimal en minúsculas (64 caracteres). Formato de las columnas {@code token_hash}.
+     */
+    public static String sha256Hex(String value) {
+        return HexFormat.of().formatHex(sha256(value));
+    }
+}
@@ -0,0 +1,264 @@
+package org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.utils;
+
+import lombok.Value;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.exceptions.InvalidRequestParameterException;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lector por filas de un cuerpo NDJSON (un objeto JSON por línea) o CSV (con cabecera).
+ *
+ * <p>Lee una línea cada vez, así que la memoria no depende del tamaño de la entrada: solo
+ * se guarda la línea en curso, y una línea de más de {@link #MAX_LINE_CHARS} caracteres se
+ * descarta (sin acumularla) y se devuelve como fila con error.</p>
+ *
+ * <p>Cada fila trae los valores en el orden de las columnas pedidas ({@code null} si faltan).
+ * En CSV la cabecera puede tener las columnas en cualquier orden y sin distinguir mayúsculas;
+ * los campos entre comillas admiten comas y comillas dobladas ({@code ""}), pero no saltos de línea.</p>
+ */
+public final class ImportRowReader implements AutoCloseable {
+
+    /** Longitud máxima de una línea; las más largas se rechazan sin cargarlas enteras. */
+    public static final int MAX_LINE_CHARS = 4096;
+
+    /**
+     * Fila leída: valores en el orden de las columnas, o el motivo por el que no se pudo leer.
+     */
+    @Value
+    public static class Row {
+
+        /** Número de línea en la entrada (empieza en 1, cuenta la cabecera CSV). */
+        long line;
+
+        String[] values;
+
+        /** {@code null} si la línea se ha leído bien. */
+        String error;
+
+        public boolean isValid() {
+            return error == null;
+        }
+    }
+
+    private final BufferedReader reader;
+    private final TabularFormat format;
+    private final List<String> columns;
+    private final JsonMapper jsonMapper;
+    private final String resource;
+
+    /** Posición de cada columna pedida dentro de la línea CSV (-1 si no está). */
+    private int[] csvIndexes;
+
+    private long lineNumber;
+
+    /** Línea en curso (se reutiliza entre líneas). */
+    private final char[] buffer = new char[MAX_LINE_CHARS];
+
+    /**
+     * @param in         cuerpo de la petición; se cierra con {@link #close()}.
+     * @param charset    codificación ({@code null} para UTF-8).
+     * @param format     formato de la entrada.
+     * @param columns    columnas a extraer, con el nombre de la propiedad JSON / cabecera CSV.
+     * @param jsonMapper mapper para las líneas NDJSON.
+     * @param resource   recurso, para los errores de cabecera.
+     */
+    public ImportRowReader(InputStream in, Charset charset, TabularFormat format, List<String> columns,
+                           JsonMapper jsonMapper, String resource) {
+        this.reader = new BufferedReader(new InputStreamReader(in, charset != null ? charset : StandardCharsets.UTF_8));
+        this.format = format;
+        this.columns = columns;
+        this.jsonMapper = jsonMapper;
+        this.resource = resource;
+    }
+
+    /**
+     * Siguiente fila, saltando líneas en blanco; {@code null} al final de la entrada.
+     *
+     * @throws InvalidRequestParameterException si la cabecera CSV falta o no tiene todas las columnas.
+     * @throws UncheckedIOException            si falla la lectura del cuerpo.
+     */
+    public Row next() {
+        if (format == TabularFormat.CSV && csvIndexes == null) {
+            readCsvHeader();
+        }
+
+        String line;
+        while ((line = readLine()) != null) {
+            if (line == TOO_LONG) {
+                return new Row(lineNumber, null, "Line longer than " + MAX_LINE_CHARS + " characters");
+            }
+            if (line.isBlank()) {
+                continue;
+            }
+            return format == TabularFormat.CSV ? csvRow(line) : ndjsonRow(line);
+        }
+        return null;
+    }
+
+    @Override
+    public void close() {
+        try {
+            reader.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // =========================
+    // NDJSON
+    // =========================
+
+    private Row ndjsonRow(String line) {
+        Map<?, ?> object;
+        try {
+            object = jsonMapper.readValue(line, Map.class);
+        } catch (JacksonException e) {
+            object = null;
+        }
+        if (object == null) {
+            return new Row(lineNumber, null, "Malformed JSON object");
+        }
+
+        String[] values = new String[columns.size()];
+        for (int i = 0; i < values.length; i++) {
+            Object value = object.get(columns.get(i));
+            values[i] = value != null ? value.toString() : null;
+        }
+        return new Row(lineNumber, values, null);
+    }
+
+    // =========================
+    // CSV
+    // =========================
+
+    private void readCsvHeader() {
+        String header = readLine();
+        if (header == null || header == TOO_LONG) {
+            throw new InvalidRequestParameterException(resource, "header", null, "Missing CSV header");
+        }
+        if (!header.isEmpty() && header.charAt(0) == '\uFEFF') {
+            header = header.substring(1);
+        }
+
+        List<String> names = splitCsv(header);
+        if (names == null) {
+            throw new InvalidRequestParameterException(resource, "header", header, "Unterminated quoted field");
+        }
+        csvIndexes = new int[columns.size()];
+        for (int i = 0; i < columns.size(); i++) {
+            csvIndexes[i] = -1;
+            for (int j = 0; j < names.size(); j++) {
+                if (names.get(j).trim().equalsIgnoreCase(columns.get(i))) {
+                    csvIndexes[i] = j;
+                }
+            }
+            if (csvIndexes[i] < 0) {
+                throw new InvalidRequestParameterException(resource, "header", header,
+                        "Missing column " + columns.get(i) + " (expected " + columns + ")");
+            }
+        }
+    }
+
+    private Row csvRow(String line) {
+        List<String> fields = splitCsv(line);
+        if (fields == null) {
+            return new Row(lineNumber, null, "Unterminated quoted field");
+        }
+
+        String[] values = new String[columns.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = csvIndexes[i] < fields.size() ? fields.get(csvIndexes[i]) : null;
+        }
+        return new Row(lineNumber, values, null);
+    }
+
+    /**
+     * Separa una línea CSV en campos; {@code null} si deja unas comillas sin cerrar.
+     */
+    static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            return null;
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    // =========================
+    // Lectura de líneas acotada
+    // =========================
+
+    /** Marca (comparada por referencia) de una línea que supera {@link #MAX_LINE_CHARS}. */
+    private static final String TOO_LONG = new String("\0");
+
+    /**
+     * Lee una línea ({@code \n}, {@code \r\n} o {@code \r}) sin guardar más de
+     * {@link #MAX_LINE_CHARS} caracteres: el resto de una línea demasiado larga se salta.
+     */
+    private String readLine() {
+        try {
+            int length = 0;
+            boolean overflow = false;
+            int c;
+            while ((c = reader.read()) != -1) {
+                if (c == '\n' || c == '\r') {
+                    if (c == '\r') {
+                        reader.mark(1);
+                        if (reader.read() != '\n') {
+                            reader.reset();
+                        }
+                    }
+                    lineNumber++;
+                    return overflow ? TOO_LONG : new String(buffer, 0, length);
+                }
+                if (length < MAX_LINE_CHARS) {
+                    buffer[length++] = (char) c;
+                } else {
+                    overflow = true;
+                }
+            }
+            if (length == 0 && !overflow) {
+                return null;
+            }
+            lineNumber++;
+            return overflow ? TOO_LONG : new String(buffer, 0, length);
+
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.utils;
+
+import io.jsonwebtoken.security.Jwks;
+import io.jsonwebtoken.security.PublicJwk;
+import io.jsonwebtoken.security.SignatureAlgorithm;
+import lombok.Value;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.security.KeyPair;
+import java.security.KeyStore;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.cert.Certificate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Anillo de claves JWT indexado por {@code kid}.
+ *
+ * <ul>
+ *   <li>Firma: la clave privada del alias configurado ({@code jwt.keystore.alias}).</li>
+ *   <li>Verificación: la clave pública de <b>todas</b> las entradas del keystore, indexadas por
+ *       {@code kid} (huella RFC 7638 de la clave), así que localizar la clave es una búsqueda en un mapa.</li>
+ * </ul>
+ *
+ * <p><b>Rotación sin reinicio:</b> se genera la clave nueva en el alias de firma y la anterior se
+ * conserva con otro alias hasta que caduquen sus tokens (1 hora). El keystore se vuelve a leer en
+ * segundo plano cuando cambia el fichero; el nuevo estado se construye aparte y se publica con
+ * una única escritura volátil, sin bloquear las peticiones en curso. Si la relectura falla se
+ * mantiene el estado anterior.</p>
+ */
+public class JwtKeyRing {
+
+    private static final Logger log = LoggerFactory.getLogger(JwtKeyRing.class);
+
+    private final Path keystorePath;
+    private final char[] keystorePassword;
+    private final String signingAlias;
+    private final String keystoreType;
+
+    /** Estado inmutable publicado; se sustituye completo en cada recarga. */
+    private volatile Snapshot snapshot;
+
+    /** Fecha de modificación del keystore en la última carga. */
+    private volatile FileTime loadedModifiedTime;
+
+    /**
+     * Crea el anillo leyendo el keystore indicado.
+     */
+    public JwtKeyRing(String keystorePath, String keystorePassword,
+                      String signingAlias, String keystoreType) throws Exception {
+        this.keystorePath = Paths.get(keystorePath);
+        this.keystorePassword = keystorePassword.toCharArray();
+        this.signingAlias = signingAlias;
+        this.keystoreType = keystoreType;
+
+        this.loadedModifiedTime = Files.getLastModifiedTime(this.keystorePath);
+        this.snapshot = loadSnapshot();
+    }
+
+    private JwtKeyRing(Snapshot snapshot) {
+        this.keystorePath = null;
+        this.keystorePassword = null;
+        this.signingAlias = null;
+        this.keystoreType = null;
+        this.snapshot = snapshot;
+    }
+
+    /**
+     * Anillo fijo con un único par de claves (sin keystore ni recarga). Útil en pruebas y benchmarks.
+     */
+    public static JwtKeyRing ofKeyPair(KeyPair keyPair) {
+        return new JwtKeyRing(Snapshot.build(
+                Map.of("default", keyPair.getPublic()), "default", keyPair.getPrivate()));
+    }
+
+    /**
+     * Clave de firma actual (kid + clave privada + algoritmo), leída de forma atómica.
+     */
+    public SigningKey signingKey() {
+        return snapshot.getSigningKey();
+    }
+
+    /**
+     * Clave pública asociada a un {@code kid}, o {@code null} si no está en el anillo.
+     */
+    public PublicKey verificationKey(String kid) {
+        return snapshot.getVerificationKeys().get(kid);
+    }
+
+    /**
+     * Identificador del algoritmo ({@code RS256}, {@code ES256}, {@code EdDSA}) de la clave de un
+     * {@code kid}, o {@code null} si no está en el anillo. Permite descartar tokens sin hacer criptografía.
+     */
+    public String algorithmFor(String kid) {
+        return snapshot.getAlgorithms().get(kid);
+    }
+
+    /**
+     * Claves públicas en formato JWK (para publicar en {@code /api/auth/jwks.json}).
+     */
+    public List<Map<String, Object>> publicJwks() {
+        return snapshot.getJwks();
+    }
+
+    /**
+     * Comprueba periódicamente si el keystore ha cambiado y, en ese caso, lo vuelve a leer.
+     */
+    @Scheduled(fixedDelayString = "${jwt.keystore.reload-interval:PT30S}",
+            initialDelayString = "${jwt.keystore.reload-interval:PT30S}")
+    public void reloadIfChanged() {
+        if (keystorePath == null) {
+            return;
+        }
+
+        try {
+            FileTime modified = Files.getLastModifiedTime(keystorePath);
+            if (modified.equals(loadedModifiedTime)) {
+                return;
+            }
+
+            Snapshot reloaded = loadSnapshot();
+            snapshot = reloaded;
+            loadedModifiedTime = modified;
+
+            log.info("Keystore JWT recargado: kid de firma={}, claves de verificación={}",
+                    reloaded.getSigningKey().getKid(), reloaded.getVerificationKeys().keySet());
+
+        } catch (Exception e) {
+            // Se conserva el anillo anterior: un fichero a medio copiar no debe tumbar la autenticación
+            log.error("No se pudo recargar el keystore JWT {}: {}", keystorePath, e.getMessage());
+        }
+    }
+
+    private Snapshot loadSnapshot() throws Exception {
+        // 1) Abrir el keystore (según tipo) y cargarlo con su contraseña
+        KeyStore keyStore = KeyStore.getInstance(keystoreType);
+        try (InputStream in = Files.newInputStream(keystorePath)) {
+            keyStore.load(in, keystorePassword);
+        }
+
+        // 2) Clave pública de cada entrada con certificado
+        Map<String, PublicKey> publicKeys = new LinkedHashMap<>();
+        for (String alias : Collections.list(keyStore.aliases())) {
+            Certificate certificate = keyStore.getCertificate(alias);
+            if (certificate != null) {
+                publicKeys.put(alias, certificate.getPublicKey());
+            }
+        }
+
+        // 3) Clave privada del alias de firma
+        PrivateKey privateKey = (PrivateKey) keyStore.getKey(signingAlias, keystorePassword);
+        if (privateKey == null || !publicKeys.containsKey(signingAlias)) {
+            throw new IllegalStateException("El keystore no contiene el par de claves con alias " + signingAlias);
+        }
+
+        return Snapshot.build(publicKeys, signingAlias, privateKey);
+    }
+
+    /**
+     * Clave de firma activa: {@code kid}, clave privada, su pública y el algoritmo derivado del tipo de clave.
+     */
+    @Value
+    public static class SigningKey {
+        String kid;
+        PrivateKey privateKey;
+        PublicKey publicKey;
+        SignatureAlgorithm algorithm;
+    }
+
+    @Value
+    private static class Snapshot {
+        SigningKey signingKey;
+        Map<String, PublicKey> verificationKeys;
+        Map<String, String> algorithms;
+        List<Map<String, Object>> jwks;
+
+        static Snapshot build(Map<String, PublicKey> publicKeysByAlias, String signingAlias, PrivateKey privateKey) {
+            Map<String, PublicKey> byKid = new LinkedHashMap<>();
+            Map<String, String> algorithms = new LinkedHashMap<>();
+            List<Map<String, Object>> jwks = new ArrayList<>();
+            String signingKid = null;
+
+            for (Map.Entry<String, PublicKey> entry : publicKeysByAlias.entrySet()) {
+                PublicKey publicKey = entry.getValue();
+
+                // kid = huella RFC 7638: estable aunque cambie el alias
+                PublicJwk<?> jwk = Jwks.builder().key(publicKey).idFromThumbprint().build();
+                byKid.put(jwk.getId(), publicKey);
+
+                String algorithm = JwtSignatureAlgorithms.forKey(publicKey).getId();
+                algorithms.put(jwk.getId(), algorithm);
+
+                Map<String, Object> json = new LinkedHashMap<>(jwk);
+                json.put("use", "sig");
+                json.put("alg", algorithm);
+                jwks.add(Collections.unmodifiableMap(json));
+
+                if (entry.getKey().equals(signingAlias)) {
+                    signingKid = jwk.getId();
+                }
+            }
+
+            SigningKey signingKey = new SigningKey(
+                    signingKid,
+                    privateKey,
+                    byKid.get(signingKid),
+                    JwtSignatureAlgorithms.forKey(privateKey)
+            );
+
+            return new Snapshot(signingKey, Map.copyOf(byKid), Map.copyOf(algorithms), List.copyOf(jwks));
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.utils;
+
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.Base64;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Primera etapa, barata, de la validación de un JWT: descarta sin criptografía los tokens
+ * que la verificación de firma rechazaría igualmente.
+ *
+ * <ol>
+ *   <li>Estructura: tres segmentos separados por puntos, ninguno vacío.</li>
+ *   <li>Cabecera y payload en Base64URL con JSON válido (se decodifican <b>sin verificar</b>).</li>
+ *   <li>{@code kid} presente en el anillo de claves y {@code alg} igual al de esa clave
+ *       (sin {@code kid}: el de la clave de firma activa).</li>
+ *   <li>{@code exp} presente y en el futuro.</li>
+ * </ol>
+ *
+ * <p>Nada de lo decodificado aquí se usa para autenticar: solo sirve para rechazar antes.
+ * Los tokens que pasan se verifican completos con {@link JwtUtil}. Cada rechazo se cuenta en
+ * {@code jwt.precheck.rejected{reason=...}}.</p>
+ *
+ * <p>Solo se ejecuta cuando va a haber verificación de firma ({@link VerifiedTokenCache} sin
+ * acierto): un token ya verificado y cacheado no paga las decodificaciones de aquí.</p>
+ */
+@Component
+public class JwtPrecheck {
+
+    /**
+     * Motivo de rechazo.
+     */
+    public enum Rejection {
+        MALFORMED,
+        UNKNOWN_KID,
+        ALGORITHM_MISMATCH,
+        EXPIRED
+    }
+
+    private static final JsonMapper JSON = JsonMapper.shared();
+
+    @Autowired
+    private JwtKeyRing jwtKeyRing;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<Rejection, Counter> rejected = new EnumMap<>(Rejection.class);
+
+    @PostConstruct
+    void initMetrics() {
+        for (Rejection reason : Rejection.values()) {
+            rejected.put(reason, Counter.builder("jwt.precheck.rejected")
+                    .tag("reason", reason.name().toLowerCase())
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Token descartado por la comprobación previa; es un {@link JwtException} para que quien
+     * verifica lo trate igual que un token con firma o caducidad no válidas.
+     */
+    public static final class RejectedException extends JwtException {
+
+        private final Rejection rejection;
+
+        public RejectedException(Rejection rejection) {
+            super("Token discarded before signature verification: " + rejection);
+            this.rejection = rejection;
+        }
+
+        public Rejection getRejection() {
+            return rejection;
+        }
+    }
+
+    /**
+     * Comprueba el token sin verificar la firma.
+     *
+     * @param token JWT compacto (sin el prefijo "Bearer ").
+     * @return {@code null} si el token puede pasar a la verificación completa; el motivo si no.
+     */
+    public Rejection check(String token) {
+        Rejection rejection = evaluate(token);
+        if (rejection != null) {
+            rejected.get(rejection).increment();
+        }
+        return rejection;
+    }
+
+    private Rejection evaluate(String token) {
+        // 1) Estructura: header.payload.signature
+        int firstDot = token.indexOf('.');
+        int secondDot = firstDot < 0 ? -1 : token.indexOf('.', firstDot + 1);
+        if (firstDot <= 0 || secondDot <= firstDot + 1 || secondDot == token.length() - 1
+                || token.indexOf('.', secondDot + 1) >= 0) {
+            return Rejection.MALFORMED;
+        }
+
+        // 2) Decodificación sin verificar
+        JsonNode header;
+        JsonNode payload;
+        try {
+            header = decode(token.substring(0, firstDot));
+            payload = decode(token.substring(firstDot + 1, secondDot));
+        } catch (IllegalArgumentException | JacksonException e) {
+            return Rejection.MALFORMED;
+        }
+        if (!header.isObject() || !payload.isObject()) {
+            return Rejection.MALFORMED;
+        }
+
+        // 3) kid / alg contra el anillo de claves
+        JsonNode kidNode = header.get("kid");
+        String expectedAlgorithm = kidNode == null
+                ? jwtKeyRing.signingKey().getAlgorithm().getId()
+                : jwtKeyRing.algorithmFor(kidNode.asString());
+        if (expectedAlgorithm == null) {
+            return Rejection.UNKNOWN_KID;
+        }
+
+        JsonNode algNode = header.get("alg");
+        if (algNode == null || !expectedAlgorithm.equals(algNode.asString())) {
+            return Rejection.ALGORITHM_MISMATCH;
+        }
+
+        // 4) Caducidad ("exp" en segundos desde epoch)
+        JsonNode expNode = payload.get("exp");
+        if (expNode == null || !expNode.isNumber()) {
+            return Rejection.MALFORMED;
+        }
+        if (expNode.asLong() * 1000L <= System.currentTimeMillis()) {
+            return Rejection.EXPIRED;
+        }
+
+        return null;
+    }
+
+    private static JsonNode decode(String segment) {
+        return JSON.readTree(Base64.getUrlDecoder().decode(segment));
+    }
+}
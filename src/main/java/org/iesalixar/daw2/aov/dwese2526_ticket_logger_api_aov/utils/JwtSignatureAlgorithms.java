@@ -0,0 +1,57 @@
+package org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.utils;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.SignatureAlgorithm;
+
+import java.security.Key;
+import java.security.interfaces.ECKey;
+
+/**
+ * Selección del algoritmo de firma JWT a partir del tipo de clave del keystore.
+ *
+ * <ul>
+ *   <li>RSA → RS256 (compatibilidad; firma lenta y tokens grandes).</li>
+ *   <li>EC P-256 → ES256 (P-384 → ES384, P-521 → ES512).</li>
+ *   <li>Ed25519 / Ed448 → EdDSA.</li>
+ * </ul>
+ *
+ * <p>La verificación no necesita esta tabla: jjwt toma el {@code alg} de la cabecera
+ * y comprueba que es compatible con la clave pública.</p>
+ */
+public final class JwtSignatureAlgorithms {
+
+    private JwtSignatureAlgorithms() {
+    }
+
+    /**
+     * Devuelve el algoritmo de firma adecuado para la clave (privada o pública) indicada.
+     *
+     * @throws IllegalArgumentException si el tipo de clave no está soportado.
+     */
+    public static SignatureAlgorithm forKey(Key key) {
+        String algorithm = key.getAlgorithm();
+
+        switch (algorithm) {
+            case "RSA":
+                return Jwts.SIG.RS256;
+            case "EC":
+                return forEcKey((ECKey) key);
+            case "EdDSA":
+            case "Ed25519":
+            case "Ed448":
+                return Jwts.SIG.EdDSA;
+            default:
+                throw new IllegalArgumentException("Tipo de clave JWT no soportado: " + algorithm);
+        }
+    }
+
+    private static SignatureAlgorithm forEcKey(ECKey key) {
+        int fieldSize = key.getParams().getCurve().getField().getFieldSize();
+        return switch (fieldSize) {
+            case 256 -> Jwts.SIG.ES256;
+            case 384 -> Jwts.SIG.ES384;
+            case 521 -> Jwts.SIG.ES512;
+            default -> throw new IllegalArgumentException("Curva EC no soportada: " + fieldSize + " bits");
+        };
+    }
+}
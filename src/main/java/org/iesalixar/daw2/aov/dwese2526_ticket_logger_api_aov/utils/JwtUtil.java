@@ -1,21 +1,77 @@
 package org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.utils;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.security.InvalidKeyException;
+import jakarta.annotation.PostConstruct;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.services.RoleAuthorityIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
-import java.security.KeyPair;
+import java.security.Key;
+import java.security.PublicKey;
 import java.util.Date;
 import java.util.List;
+import java.util.UUID;
 
 @Component
 public class JwtUtil {
 
+    private static final Logger log = LoggerFactory.getLogger(JwtUtil.class);
+
+    /**
+     * Anillo de claves: firma con la clave activa y verifica con la clave del {@code kid} del token.
+     */
+    @Autowired
+    private JwtKeyRing jwtKeyRing;
+
+    /**
+     * Codifica los roles como máscara de bits (claim "rm") en lugar de lista de nombres.
+     */
     @Autowired
-    private KeyPair jwtKeyPair;
+    private RoleAuthorityIndex roleAuthorityIndex;
+
+    /** Vida de los tokens en milisegundos (1 hora). */
+    public static final long JWT_EXPIRATION = 3_600_000L;
 
-    private static final long JWT_EXPIRATION = 3_600_000L;
+    /**
+     * Parser compartido. Los {@link JwtParser} de jjwt son inmutables y thread-safe,
+     * así que se construye una sola vez en lugar de en cada verificación.
+     */
+    private JwtParser jwtParser;
+
+    @PostConstruct
+    void initParser() {
+        // El parser localiza la clave pública por el "kid" de la cabecera, elige el algoritmo
+        // por "alg" y lo valida contra esa clave
+        jwtParser = Jwts.parser()
+                .keyLocator(new KeyRingLocator())
+                .build();
+
+        JwtKeyRing.SigningKey signingKey = jwtKeyRing.signingKey();
+        log.info("JWT firmado con {} (kid={})", signingKey.getAlgorithm().getId(), signingKey.getKid());
+    }
+
+    /**
+     * Verifica el token una única vez (firma + caducidad) y devuelve sus datos.
+     *
+     * <p>Es el punto de entrada recomendado en cada petición: el resultado se reutiliza
+     * en lugar de llamar a {@link #extractUsername}, {@link #validateToken} y
+     * {@link #extractAllClaims} por separado (cada una repetiría la verificación de firma).</p>
+     *
+     * @param token JWT compacto (sin el prefijo "Bearer ").
+     * @return token verificado e inmutable.
+     * @throws JwtException si la firma no es válida, está mal formado o ha caducado.
+     */
+    public VerifiedToken verify(String token) throws JwtException {
+        return VerifiedToken.from(extractAllClaims(token));
+    }
 
     /**
      * Extrae el nombre de usuario (claim "sub") del token.
@@ -30,39 +86,45 @@ public class JwtUtil {
      * Verifica la firma con la clave pública.
      */
     public Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(jwtKeyPair.getPublic()) // Verificación con PUBLIC KEY
-                .build()
+        return jwtParser
                 .parseSignedClaims(token)
                 .getPayload();
     }
 
     /**
-     * Genera un token JWT firmado con la clave privada (RS256).
+     * Genera un token JWT firmado con la clave privada (algoritmo según el tipo de clave).
+     *
+     * <p>Los roles se guardan como máscara de bits ({@code "rm"}); si alguno no tiene id en el
+     * índice de roles se usa la lista de nombres ({@code "roles"}), que también se sigue aceptando.</p>
      */
     public String generateToken(String username, List<String> roles) {
+        // Se lee una sola vez para que kid, clave y algoritmo sean de la misma versión del anillo
+        JwtKeyRing.SigningKey signingKey = jwtKeyRing.signingKey();
+
+        Long roleMask = roleAuthorityIndex.encode(roles);
+        String rolesClaim = roleMask != null ? "rm" : "roles";
+        Object rolesValue = roleMask != null ? roleMask : roles;
+
         return Jwts.builder()
+                .header().keyId(signingKey.getKid()).and()
+                .id(UUID.randomUUID().toString()) // "jti": permite revocar el token (logout)
                 .subject(username)
-                .claim("roles", roles)
+                .claim(rolesClaim, rolesValue)
                 .issuedAt(new Date())
                 .expiration(new Date(System.currentTimeMillis() + JWT_EXPIRATION))
-                .signWith(jwtKeyPair.getPrivate(), Jwts.SIG.RS256) // Firma RSA
+                .signWith(signingKey.getPrivateKey(), signingKey.getAlgorithm()) // RS256 / ES256 / EdDSA
                 .compact();
     }
 
     /**
      * Valida un token JWT verificando:
-     * 1) Firma RSA válida
+     * 1) Firma válida
      * 2) Subject coincide
      * 3) No está expirado
      */
     public boolean validateToken(String token, String username) {
         try {
-            Claims claims = Jwts.parser()
-                    .verifyWith(jwtKeyPair.getPublic())
-                    .build()
-                    .parseSignedClaims(token)
-                    .getPayload();
+            Claims claims = extractAllClaims(token);
 
             String tokenUsername = claims.getSubject();
             if (tokenUsername == null || !tokenUsername.equals(username)) {
@@ -82,4 +144,25 @@ public class JwtUtil {
     private boolean isTokenExpired(Claims claims) {
         return claims.getExpiration().before(new Date());
     }
+
+    /**
+     * Localiza la clave de verificación por el {@code kid} de la cabecera (búsqueda en mapa).
+     * Los tokens sin {@code kid} (emitidos antes del anillo de claves) se verifican con la clave activa.
+     */
+    private final class KeyRingLocator extends LocatorAdapter<Key> {
+
+        @Override
+        protected Key locate(JwsHeader header) {
+            String kid = header.getKeyId();
+            if (kid == null) {
+                return jwtKeyRing.signingKey().getPublicKey();
+            }
+
+            PublicKey key = jwtKeyRing.verificationKey(kid);
+            if (key == null) {
+                throw new InvalidKeyException("kid desconocido: " + kid);
+            }
+            return key;
+        }
+    }
 }
@@ -0,0 +1,102 @@
+package org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.utils;
+
+import lombok.Value;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.exceptions.InvalidRequestParameterException;
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Set;
+
+/**
+ * Cursor de paginación por clave (keyset): orden usado y clave de la última fila entregada
+ * (valor de la propiedad de orden + id como desempate).
+ *
+ * <p>Se envía al cliente como texto opaco (Base64 URL). La página siguiente busca las filas
+ * posteriores a esa clave, así que su coste no depende de lo lejos que esté del principio
+ * (no hay {@code OFFSET}) y no se descuadra si se insertan o borran filas anteriores.</p>
+ */
+@Value
+public class PageCursor {
+
+    private static final String VERSION = "1";
+
+    /** Propiedad de orden (por ejemplo {@code name}). */
+    String property;
+
+    Sort.Direction direction;
+
+    /** Valor de {@link #property} en la última fila entregada. */
+    String key;
+
+    /** Id de la última fila entregada (desempate cuando {@link #key} se repite). */
+    long id;
+
+    /**
+     * Cursor que apunta detrás de la fila con esa clave, para el orden indicado.
+     */
+    public static PageCursor after(Sort.Order order, String key, long id) {
+        return new PageCursor(order.getProperty(), order.getDirection(), key, id);
+    }
+
+    /** Orden que codifica el cursor. */
+    public Sort.Order order() {
+        return new Sort.Order(direction, property);
+    }
+
+    /**
+     * Texto opaco para devolver como {@code nextCursor}.
+     */
+    public String encode() {
+        String raw = VERSION + "|" + property + "|" + (direction.isAscending() ? "A" : "D") + "|" + id + "|" + key;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodifica un cursor recibido. La clave va al final, así que puede contener {@code |}.
+     *
+     * @throws InvalidRequestParameterException si no es un cursor emitido por {@link #encode()}.
+     */
+    public static PageCursor decode(String cursor, String resource) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 5);
+            if (parts.length != 5 || !VERSION.equals(parts[0]) || !(parts[2].equals("A") || parts[2].equals("D"))) {
+                throw new IllegalArgumentException("formato desconocido");
+            }
+            Sort.Direction direction = parts[2].equals("A") ? Sort.Direction.ASC : Sort.Direction.DESC;
+            return new PageCursor(parts[1], direction, parts[4], Long.parseLong(parts[3]));
+
+        } catch (IllegalArgumentException e) {
+            // Incluye Base64 y número mal formados (NumberFormatException)
+            throw new InvalidRequestParameterException(resource, "cursor", cursor, "Malformed cursor");
+        }
+    }
+
+    /**
+     * Único criterio de orden admitido en modo cursor (el id se añade siempre como desempate).
+     *
+     * @param sort     orden de la petición.
+     * @param resource recurso, para el error.
+     * @param allowed  propiedades por las que se puede paginar con cursor.
+     * @throws InvalidRequestParameterException si hay varios criterios o la propiedad no se admite.
+     */
+    public static Sort.Order singleOrder(Sort sort, String resource, Set<String> allowed) {
+        Sort.Order order = null;
+        for (Sort.Order o : sort) {
+            if (order != null) {
+                throw new InvalidRequestParameterException(resource, "sort", sort.toString(),
+                        "Cursor pagination supports a single sort property");
+            }
+            order = o;
+        }
+        if (order == null) {
+            order = Sort.Order.asc("id");
+        }
+        if (!allowed.contains(order.getProperty())) {
+            throw new InvalidRequestParameterException(resource, "sort", order.getProperty(),
+                    "Cursor pagination supports " + allowed);
+        }
+        return order;
+    }
+}
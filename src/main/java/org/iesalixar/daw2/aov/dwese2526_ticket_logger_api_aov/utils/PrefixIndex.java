@@ -0,0 +1,236 @@
+package org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.utils;
+
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Índice inmutable para autocompletar nombres por prefijo, sin distinguir mayúsculas ni tildes.
+ *
+ * <p>Cada nombre se normaliza con {@link #fold(String)} ({@code "CASTILLA Y LEÓN"} →
+ * {@code "castilla y leon"}) y se indexa una vez por palabra: la entrada es el texto desde el
+ * inicio de esa palabra hasta el final. Así {@code "leon"} encuentra {@code "Castilla y León"}
+ * y {@code "castilla y l"} también. Las entradas se guardan en un array ordenado: una búsqueda
+ * es una búsqueda binaria más el recorrido de las entradas que empiezan por el prefijo.</p>
+ *
+ * <p>Orden de los resultados:</p>
+ * <ol>
+ *   <li>Coincidencias al principio del nombre antes que en palabras posteriores.</li>
+ *   <li>Nombres más cortos primero (el prefijo cubre más parte del nombre).</li>
+ *   <li>Nombre normalizado.</li>
+ * </ol>
+ *
+ * <p>El orden se precalcula al construir el índice en un {@code long} por entrada, así que una
+ * búsqueda solo compara números y reserva el array del resultado (y el texto normalizado de la
+ * consulta).</p>
+ */
+public final class PrefixIndex {
+
+    private static final PrefixIndex EMPTY = new PrefixIndex(new String[0], new int[0], new long[0]);
+
+    /** Textos indexados (desde el inicio de cada palabra), ordenados. */
+    private final String[] terms;
+
+    /** Posición en la lista original del nombre de cada entrada. */
+    private final int[] items;
+
+    /** Clave de orden de cada entrada: menor = mejor resultado. */
+    private final long[] ranks;
+
+    private PrefixIndex(String[] terms, int[] items, long[] ranks) {
+        this.terms = terms;
+        this.items = items;
+        this.ranks = ranks;
+    }
+
+    /**
+     * Construye el índice de una lista de nombres; los resultados de {@link #search} son
+     * posiciones de esta lista.
+     */
+    public static PrefixIndex of(List<String> names) {
+        if (names.isEmpty()) {
+            return EMPTY;
+        }
+
+        String[] folded = names.stream().map(PrefixIndex::fold).toArray(String[]::new);
+
+        // Puesto de cada nombre por (longitud, texto): segunda y tercera parte del orden
+        Integer[] byLength = new Integer[folded.length];
+        for (int i = 0; i < byLength.length; i++) {
+            byLength[i] = i;
+        }
+        Arrays.sort(byLength, Comparator.<Integer>comparingInt(i -> folded[i].length()).thenComparing(i -> folded[i]));
+        int[] place = new int[folded.length];
+        for (int p = 0; p < byLength.length; p++) {
+            place[byLength[p]] = p;
+        }
+
+        int count = 0;
+        for (String name : folded) {
+            count += words(name);
+        }
+        Entry[] entries = new Entry[count];
+        int e = 0;
+        for (int item = 0; item < folded.length; item++) {
+            String name = folded[item];
+            if (name.isEmpty()) {
+                continue;
+            }
+            int start = 0;
+            int wordIndex = 0;
+            while (true) {
+                // Palabra de la coincidencia en los 32 bits altos y puesto del nombre en los bajos
+                long rank = ((long) wordIndex << 32) | place[item];
+                entries[e++] = new Entry(name.substring(start), item, rank);
+
+                int space = name.indexOf(' ', start);
+                if (space < 0) {
+                    break;
+                }
+                start = space + 1;
+                wordIndex++;
+            }
+        }
+        Arrays.sort(entries, 0, e, Comparator.comparing((Entry entry) -> entry.term));
+
+        String[] terms = new String[e];
+        int[] items = new int[e];
+        long[] ranks = new long[e];
+        for (int i = 0; i < e; i++) {
+            terms[i] = entries[i].term;
+            items[i] = entries[i].item;
+            ranks[i] = entries[i].rank;
+        }
+        return new PrefixIndex(terms, items, ranks);
+    }
+
+    /**
+     * Posiciones (en la lista de {@link #of}) de los mejores nombres con alguna palabra que
+     * empieza por {@code query}, de mejor a peor, sin repetidos.
+     *
+     * @param query texto escrito por el usuario (se normaliza igual que los nombres).
+     * @param limit máximo de resultados.
+     * @return array de como mucho {@code limit} posiciones; vacío si la consulta no tiene letras ni dígitos.
+     */
+    public int[] search(String query, int limit) {
+        String prefix = query != null ? fold(query) : "";
+        if (prefix.isEmpty() || limit <= 0) {
+            return new int[0];
+        }
+
+        int[] best = new int[limit];
+        long[] bestRanks = new long[limit];
+        int found = 0;
+
+        for (int k = lowerBound(prefix); k < terms.length && terms[k].startsWith(prefix); k++) {
+            long rank = ranks[k];
+            int item = items[k];
+
+            // Si el nombre ya está (coincide en otra palabra) se queda con la mejor posición
+            int existing = -1;
+            for (int i = 0; i < found; i++) {
+                if (best[i] == item) {
+                    existing = i;
+                    break;
+                }
+            }
+            if (existing >= 0) {
+                if (rank >= bestRanks[existing]) {
+                    continue;
+                }
+                System.arraycopy(best, existing + 1, best, existing, found - existing - 1);
+                System.arraycopy(bestRanks, existing + 1, bestRanks, existing, found - existing - 1);
+                found--;
+            } else if (found == limit && rank >= bestRanks[limit - 1]) {
+                continue;
+            }
+
+            // Inserción ordenada en el top-N
+            int pos = Math.min(found, limit - 1);
+            while (pos > 0 && bestRanks[pos - 1] > rank) {
+                best[pos] = best[pos - 1];
+                bestRanks[pos] = bestRanks[pos - 1];
+                pos--;
+            }
+            best[pos] = item;
+            bestRanks[pos] = rank;
+            if (found < limit) {
+                found++;
+            }
+        }
+        return found == limit ? best : Arrays.copyOf(best, found);
+    }
+
+    /** Número de entradas (una por palabra de cada nombre). */
+    public int size() {
+        return terms.length;
+    }
+
+    /**
+     * Normaliza un texto para buscar: sin tildes ni diacríticos, en minúsculas y con cualquier
+     * separador (espacios, guiones, apóstrofos...) convertido en un único espacio.
+     */
+    public static String fold(String text) {
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        StringBuilder out = new StringBuilder(decomposed.length());
+        boolean separator = true;
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            if (Character.isLetterOrDigit(c)) {
+                out.append(Character.toLowerCase(c));
+                separator = false;
+            } else if (!separator) {
+                out.append(' ');
+                separator = true;
+            }
+        }
+        if (!out.isEmpty() && out.charAt(out.length() - 1) == ' ') {
+            out.setLength(out.length() - 1);
+        }
+        return out.toString();
+    }
+
+    /** Primera entrada {@code >= prefix}. */
+    private int lowerBound(String prefix) {
+        int low = 0;
+        int high = terms.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (terms[mid].compareTo(prefix) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static int words(String folded) {
+        if (folded.isEmpty()) {
+            return 0;
+        }
+        int words = 1;
+        for (int i = 0; i < folded.length(); i++) {
+            if (folded.charAt(i) == ' ') {
+                words++;
+            }
+        }
+        return words;
+    }
+
+    private static final class Entry {
+        private final String term;
+        private final int item;
+        private final long rank;
+
+        private Entry(String term, int item, long rank) {
+            this.term = term;
+            this.item = item;
+            this.rank = rank;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.utils;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cuerpo JSON ya serializado, en claro y comprimido con gzip, listo para escribirse tal cual.
+ *
+ * <p>Cada representación tiene su propio ETag fuerte (la comprimida añade el sufijo
+ * {@code -gz}), porque sus bytes son distintos. La elección depende de {@code Accept-Encoding}
+ * y se indica con {@code Vary: Accept-Encoding}.</p>
+ *
+ * <p>Como los dos ETags se derivan del ETag del contenido, {@link #notModified} puede responder
+ * 304 antes de tener el cuerpo (sin serializar ni comprimir).</p>
+ */
+public final class RenderedJson {
+
+    /** Por debajo de este tamaño gzip no compensa (cabeceras + CPU del cliente). */
+    private static final int MIN_GZIP_BYTES = 256;
+
+    private final String eTag;
+    private final byte[] json;
+    private final byte[] gzip;
+
+    private RenderedJson(String eTag, byte[] json, byte[] gzip) {
+        this.eTag = eTag;
+        this.json = json;
+        this.gzip = gzip;
+    }
+
+    /**
+     * Guarda el JSON y su versión gzip (solo si es más pequeña).
+     *
+     * @param eTag ETag fuerte (entre comillas) del contenido.
+     * @param json cuerpo serializado en UTF-8; no se copia, no debe modificarse después.
+     */
+    public static RenderedJson of(String eTag, byte[] json) {
+        byte[] gzip = json.length >= MIN_GZIP_BYTES ? gzip(json) : null;
+        return new RenderedJson(eTag, json, gzip != null && gzip.length < json.length ? gzip : null);
+    }
+
+    /** Bytes aproximados que ocupa en memoria (para métricas y pesos de caché). */
+    public int sizeInBytes() {
+        return json.length + (gzip != null ? gzip.length : 0);
+    }
+
+    /**
+     * 304 si {@code If-None-Match} contiene el ETag de alguna de las dos representaciones del
+     * contenido {@code eTag} (en claro o {@code -gz}); {@code null} si hay que enviar el cuerpo.
+     *
+     * @param eTag ETag fuerte (entre comillas) del contenido.
+     */
+    public static ResponseEntity<byte[]> notModified(String eTag, WebRequest request, CacheControl cacheControl) {
+        String[] values = request.getHeaderValues(HttpHeaders.IF_NONE_MATCH);
+        if (values == null) {
+            return null;
+        }
+
+        String gzipETag = gzipETag(eTag);
+        for (String value : values) {
+            for (String candidate : value.split(",")) {
+                String tag = candidate.trim();
+                // If-None-Match usa comparación débil: se ignora el prefijo W/
+                if (tag.startsWith("W/")) {
+                    tag = tag.substring(2);
+                }
+                if (tag.equals(eTag) || tag.equals("*") || tag.equals(gzipETag)) {
+                    return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                            .cacheControl(cacheControl)
+                            .eTag(tag.equals(gzipETag) ? gzipETag : eTag)
+                            .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                            .build();
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Respuesta con la representación adecuada, o 304 si {@code If-None-Match} ya la tiene.
+     * No serializa ni comprime nada: solo elige el array de bytes y compara cabeceras.
+     */
+    public ResponseEntity<byte[]> toResponse(WebRequest request, CacheControl cacheControl) {
+        boolean gzipped = gzip != null && acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        String representationETag = gzipped ? gzipETag(eTag) : eTag;
+
+        if (request.checkNotModified(representationETag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .cacheControl(cacheControl)
+                    .eTag(representationETag)
+                    .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                    .build();
+        }
+
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .cacheControl(cacheControl)
+                .eTag(representationETag)
+                .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                .contentType(MediaType.APPLICATION_JSON);
+        if (gzipped) {
+            builder.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return builder.body(gzipped ? gzip : json);
+    }
+
+    /**
+     * {@code true} si {@code Accept-Encoding} admite gzip (explícitamente o con {@code *})
+     * y no lo excluye con {@code q=0}. Un {@code gzip} explícito prevalece sobre {@code *}.
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        boolean wildcard = false;
+        for (String part : acceptEncoding.split(",")) {
+            String[] tokens = part.trim().split(";");
+            String coding = tokens[0].trim();
+            boolean accepted = true;
+            for (int i = 1; i < tokens.length; i++) {
+                if (tokens[i].replace(" ", "").matches("q=0(\\.0{0,3})?")) {
+                    accepted = false;
+                }
+            }
+            if (coding.equalsIgnoreCase("gzip")) {
+                return accepted;
+            }
+            if (coding.equals("*")) {
+                wildcard = accepted;
+            }
+        }
+        return wildcard;
+    }
+
+    /** ETag de la representación gzip: el del contenido con el sufijo {@code -gz}. */
+    private static String gzipETag(String eTag) {
+        return eTag.substring(0, eTag.length() - 1) + "-gz\"";
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4 + 64);
+        try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+            gz.write(data);
+        } catch (IOException e) {
+            // Solo escribe en memoria: no debería ocurrir
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
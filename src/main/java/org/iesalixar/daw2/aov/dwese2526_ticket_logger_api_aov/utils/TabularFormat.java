@@ -0,0 +1,66 @@
+package org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.utils;
+
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.exceptions.InvalidRequestParameterException;
+import org.springframework.http.MediaType;
+
+/**
+ * Formatos de texto por filas que admiten la importación y la exportación masivas.
+ */
+public enum TabularFormat {
+
+    /** Un objeto JSON por línea. */
+    NDJSON("ndjson", TabularFormat.NDJSON_VALUE),
+
+    /** Valores separados por comas, con cabecera. */
+    CSV("csv", TabularFormat.CSV_VALUE);
+
+    public static final String NDJSON_VALUE = "application/x-ndjson";
+
+    public static final String CSV_VALUE = "text/csv";
+
+    private final String extension;
+    private final MediaType mediaType;
+
+    TabularFormat(String extension, String mediaType) {
+        this.extension = extension;
+        this.mediaType = MediaType.parseMediaType(mediaType);
+    }
+
+    /** Extensión de fichero (sin punto), también el valor del parámetro {@code format}. */
+    public String getExtension() {
+        return extension;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    /**
+     * Formato según el {@code Content-Type} de la petición.
+     *
+     * @throws InvalidRequestParameterException si no es NDJSON ni CSV.
+     */
+    public static TabularFormat of(MediaType contentType, String resource) {
+        for (TabularFormat format : values()) {
+            if (contentType != null && contentType.isCompatibleWith(format.mediaType)) {
+                return format;
+            }
+        }
+        throw new InvalidRequestParameterException(resource, "Content-Type", contentType,
+                "Expected " + NDJSON_VALUE + " or " + CSV_VALUE);
+    }
+
+    /**
+     * Formato según el parámetro {@code format} ({@code ndjson} o {@code csv}, sin distinguir mayúsculas).
+     *
+     * @throws InvalidRequestParameterException si no es ninguno de los dos.
+     */
+    public static TabularFormat of(String format, String resource) {
+        for (TabularFormat value : values()) {
+            if (value.extension.equalsIgnoreCase(format)) {
+                return value;
+            }
+        }
+        throw new InvalidRequestParameterException(resource, "format", format, "Expected ndjson or csv");
+    }
+}
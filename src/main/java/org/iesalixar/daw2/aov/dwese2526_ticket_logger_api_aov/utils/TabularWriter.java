@@ -0,0 +1,153 @@
+package org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.utils;
+
+import tools.jackson.core.io.JsonStringEncoder;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Escritor por filas en NDJSON o CSV (UTF-8) directamente sobre la respuesta.
+ *
+ * <p>No guarda filas: cada una se escribe en un búfer de salida y se descarta, así que el
+ * consumo de memoria no depende del número de filas. Los valores pueden ser texto, números,
+ * booleanos, fechas ({@code toString()} ISO-8601), colecciones de texto (array en NDJSON,
+ * valores separados por {@code |} en CSV) o {@code null} (campo vacío en CSV).</p>
+ *
+ * <p>El formato CSV es el mismo que lee {@link ImportRowReader}: una exportación se puede
+ * volver a importar sin cambios.</p>
+ */
+public final class TabularWriter {
+
+    private static final JsonStringEncoder JSON = JsonStringEncoder.getInstance();
+
+    private final Writer out;
+    private final TabularFormat format;
+    private final List<String> columns;
+
+    /**
+     * @param out     salida; no se cierra (es la de la respuesta).
+     * @param format  formato a escribir.
+     * @param columns nombres de columna (cabecera CSV / propiedades JSON).
+     */
+    public TabularWriter(OutputStream out, TabularFormat format, List<String> columns) {
+        this.out = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 16 * 1024);
+        this.format = format;
+        this.columns = columns;
+
+        if (format == TabularFormat.CSV) {
+            write(String.join(",", columns));
+            write("\n");
+        }
+    }
+
+    /**
+     * Escribe una fila con un valor por columna, en el mismo orden.
+     *
+     * @throws UncheckedIOException si el cliente cierra la conexión.
+     */
+    public void writeRow(Object... values) {
+        if (format == TabularFormat.CSV) {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    write(",");
+                }
+                writeCsv(values[i]);
+            }
+        } else {
+            write("{");
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    write(",");
+                }
+                writeJsonString(columns.get(i));
+                write(":");
+                writeJson(values[i]);
+            }
+            write("}");
+        }
+        write("\n");
+    }
+
+    /**
+     * Envía al cliente lo que haya en el búfer.
+     */
+    public void flush() {
+        try {
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // =========================
+    // CSV
+    // =========================
+
+    private void writeCsv(Object value) {
+        if (value == null) {
+            return;
+        }
+        String text = value instanceof Collection<?> collection
+                ? String.join("|", collection.stream().map(String::valueOf).toList())
+                : value.toString();
+
+        boolean quote = text.indexOf(',') >= 0 || text.indexOf('"') >= 0
+                || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0;
+        if (quote) {
+            // Los saltos de línea se cambian por espacios: el lector CSV trabaja línea a línea
+            write("\"" + text.replace("\"", "\"\"").replace('\n', ' ').replace('\r', ' ') + "\"");
+        } else {
+            write(text);
+        }
+    }
+
+    // =========================
+    // NDJSON
+    // =========================
+
+    private void writeJson(Object value) {
+        if (value == null) {
+            write("null");
+        } else if (value instanceof Number || value instanceof Boolean) {
+            write(value.toString());
+        } else if (value instanceof Collection<?> collection) {
+            write("[");
+            boolean first = true;
+            for (Object item : collection) {
+                if (!first) {
+                    write(",");
+                }
+                writeJsonString(String.valueOf(item));
+                first = false;
+            }
+            write("]");
+        } else {
+            writeJsonString(value.toString());
+        }
+    }
+
+    private void writeJsonString(String text) {
+        write("\"");
+        try {
+            out.write(JSON.quoteAsCharArray(text));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        write("\"");
+    }
+
+    private void write(String text) {
+        try {
+            out.write(text);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.utils;
+
+import io.jsonwebtoken.Claims;
+import lombok.Value;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Resultado inmutable de verificar un JWT una única vez.
+ *
+ * <p>Se obtiene con {@link JwtUtil#verify(String)} tras comprobar la firma y la caducidad,
+ * y se reutiliza durante el resto de la petición para no volver a parsear el token.</p>
+ */
+@Value
+public class VerifiedToken {
+
+    /** Claim "sub": en este proyecto, el email del usuario. */
+    String subject;
+
+    /**
+     * Claim "roles" (formato anterior): nombres técnicos (ROLE_ADMIN, ROLE_USER...). Lista inmutable,
+     * vacía en los tokens con formato compacto.
+     */
+    List<String> roles;
+
+    /** Claim "rm" (formato compacto): máscara de bits de ids de rol. {@code null} en el formato anterior. */
+    Long roleMask;
+
+    /** Claim "exp": instante de caducidad del token. */
+    Instant expiresAt;
+
+    /** Claim "iat": instante de emisión del token. */
+    Instant issuedAt;
+
+    /** Claim "jti": identificador único del token (para revocarlo). {@code null} en tokens antiguos. */
+    String jti;
+
+    /**
+     * Construye el token verificado a partir de los claims ya validados por el parser.
+     */
+    static VerifiedToken from(Claims claims) {
+        List<?> rawRoles = claims.get("roles", List.class);
+        List<String> roles = rawRoles == null
+                ? List.of()
+                : rawRoles.stream().map(String::valueOf).toList();
+
+        Object rawMask = claims.get("rm");
+        Long roleMask = rawMask instanceof Number number ? number.longValue() : null;
+
+        return new VerifiedToken(
+                claims.getSubject(),
+                roles,
+                roleMask,
+                claims.getExpiration() != null ? claims.getExpiration().toInstant() : null,
+                claims.getIssuedAt() != null ? claims.getIssuedAt().toInstant() : null,
+                claims.getId()
+        );
+    }
+
+    /**
+     * Indica si el token ha caducado respecto al instante indicado.
+     */
+    public boolean isExpired(Instant now) {
+        return expiresAt == null || !expiresAt.isAfter(now);
+    }
+}
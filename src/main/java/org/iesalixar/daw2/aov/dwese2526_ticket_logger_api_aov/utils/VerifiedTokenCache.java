@@ -0,0 +1,154 @@
+package org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.utils;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Caché opcional de tokens ya verificados, delante de {@link JwtUtil}.
+ *
+ * <p>Un mismo token se envía cientos de veces durante su vida (1 hora). Con la caché activa
+ * solo se verifica la firma la primera vez; las siguientes peticiones lo encuentran por el
+ * SHA-256 del token (nunca se guarda el token en claro).</p>
+ *
+ * <ul>
+ *   <li>Acotada por número de entradas ({@code jwt.cache.maximum-size}); la expulsión la decide Caffeine.</li>
+ *   <li>Cada entrada caduca exactamente en el {@code exp} del propio token y, además, se comprueba
+ *       la caducidad al leer: nunca se sirve un token caducado.</li>
+ *   <li>Métricas: {@code cache.*{cache=jwt.verified}} (aciertos, fallos, expulsiones, tamaño)
+ *       y {@code jwt.cache.estimated.bytes} (memoria aproximada).</li>
+ * </ul>
+ *
+ * <p>Antes de cada verificación de firma (sin acierto en caché, o con la caché desactivada)
+ * se pasa {@link JwtPrecheck}, que descarta sin criptografía los tokens mal formados, caducados
+ * o con {@code kid}/{@code alg} desconocidos. Un acierto no lo ejecuta.</p>
+ *
+ * <p>Desactivada ({@code jwt.cache.enabled=false}) verifica siempre con {@link JwtUtil#verify(String)}.</p>
+ */
+@Component
+public class VerifiedTokenCache {
+
+    private static final Logger log = LoggerFactory.getLogger(VerifiedTokenCache.class);
+
+    /**
+     * Estimación del tamaño de una entrada: clave (43 chars), {@link VerifiedToken}
+     * (subject, roles, instantes) y nodo interno de Caffeine.
+     */
+    private static final long ESTIMATED_ENTRY_BYTES = 512L;
+
+    private static final String CACHE_NAME = "jwt.verified";
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private JwtPrecheck jwtPrecheck;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${jwt.cache.enabled:false}")
+    private boolean enabled;
+
+    @Value("${jwt.cache.maximum-size:10000}")
+    private long maximumSize;
+
+    private Cache<String, VerifiedToken> cache;
+
+    @PostConstruct
+    void init() {
+        if (!enabled) {
+            log.info("Caché de JWT verificados desactivada");
+            return;
+        }
+
+        cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new ExpireAtTokenExpiry())
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        Gauge.builder("jwt.cache.estimated.bytes", cache,
+                        c -> c.estimatedSize() * ESTIMATED_ENTRY_BYTES)
+                .description("Memoria aproximada usada por la caché de JWT verificados")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+
+        log.info("Caché de JWT verificados activa (maximumSize={})", maximumSize);
+    }
+
+    /**
+     * Devuelve el token verificado, desde caché si ya se vio y sigue vigente,
+     * o comprobándolo con {@link JwtPrecheck} y {@link JwtUtil#verify(String)} en caso contrario.
+     *
+     * @throws JwtException si el token no es válido o ha caducado
+     *                      ({@link JwtPrecheck.RejectedException} si lo descarta la comprobación previa).
+     */
+    public VerifiedToken verify(String token) throws JwtException {
+        if (cache == null) {
+            return verifySignature(token);
+        }
+
+        String key = HashUtils.sha256Base64Url(token);
+
+        VerifiedToken cached = cache.getIfPresent(key);
+        if (cached != null) {
+            if (!cached.isExpired(Instant.now())) {
+                return cached;
+            }
+            // Caducado pero aún no purgado: se descarta y se verifica de nuevo (lanzará ExpiredJwtException)
+            cache.invalidate(key);
+        }
+
+        VerifiedToken verified = verifySignature(token);
+        cache.put(key, verified);
+        return verified;
+    }
+
+    private VerifiedToken verifySignature(String token) {
+        JwtPrecheck.Rejection rejection = jwtPrecheck.check(token);
+        if (rejection != null) {
+            throw new JwtPrecheck.RejectedException(rejection);
+        }
+        return jwtUtil.verify(token);
+    }
+
+    /**
+     * Política de caducidad por entrada: el tiempo de vida es el que le queda al token.
+     */
+    private static final class ExpireAtTokenExpiry implements Expiry<String, VerifiedToken> {
+
+        @Override
+        public long expireAfterCreate(String key, VerifiedToken value, long currentTime) {
+            if (value.getExpiresAt() == null) {
+                return 0L;
+            }
+            long remaining = Duration.between(Instant.now(), value.getExpiresAt()).toNanos();
+            return Math.max(remaining, 0L);
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, VerifiedToken value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, VerifiedToken value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
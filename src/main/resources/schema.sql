@@ -16,9 +16,17 @@ CREATE TABLE IF NOT EXISTS users (
    password_expires_at DATETIME NULL,
    failed_login_attempts INT DEFAULT 0,
    email_verified BOOLEAN NOT NULL DEFAULT FALSE,
-   must_change_password BOOLEAN NOT NULL DEFAULT FALSE
+   must_change_password BOOLEAN NOT NULL DEFAULT FALSE,
+   -- Fin de un bloqueo temporal por intentos fallidos (NULL = sin bloqueo o bloqueo indefinido)
+   locked_until DATETIME NULL,
+   -- Último cambio de email, roles, active o bloqueo: los JWT emitidos antes dejan de valer
+   security_changed_at DATETIME NULL
 );
 
+-- Bases de datos creadas antes de existir locked_until / security_changed_at
+ALTER TABLE users ADD COLUMN IF NOT EXISTS locked_until DATETIME NULL;
+ALTER TABLE users ADD COLUMN IF NOT EXISTS security_changed_at DATETIME NULL;
+
 
 -- Crear tabla para las provincias españolas
 CREATE TABLE IF NOT EXISTS provinces (
@@ -130,4 +138,34 @@ CREATE TABLE IF NOT EXISTS password_reset_tokens (
  INDEX idx_prt_expires_at (expires_at)
 );
 
+CREATE TABLE IF NOT EXISTS refresh_tokens (
+ -- Clave primaria autoincremental.
+ id BIGINT AUTO_INCREMENT PRIMARY KEY,
+ -- Usuario al que pertenece el token. Se borran con el usuario.
+ user_id BIGINT NOT NULL,
+ -- Hash del refresh token (SHA-256 en hexadecimal, 64 chars). Nunca se guarda en claro.
+ token_hash VARCHAR(64) NOT NULL,
+ -- Familia de rotación: todos los tokens que descienden del mismo login comparten family_id.
+ -- Si se reutiliza un token ya rotado se revoca la familia completa.
+ family_id VARCHAR(36) NOT NULL,
+ -- Caducidad del refresh token (larga: días).
+ expires_at DATETIME NOT NULL,
+ -- Momento en el que el token se canjeó por otro (rotación). Si != NULL, no se puede volver a usar.
+ used_at DATETIME NULL,
+ -- Momento en el que se revocó la familia (reutilización detectada o cierre de sesión).
+ revoked_at DATETIME NULL,
+ -- Momento de creación del token.
+ created_at DATETIME NOT NULL,
+ -- IP y User-Agent del cliente que obtuvo el token (auditoría).
+ request_ip VARCHAR(45) NULL,
+ user_agent VARCHAR(255) NULL,
+ CONSTRAINT fk_rt_user FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE,
+ -- Búsqueda del token recibido en /api/auth/refresh (por hash).
+ UNIQUE INDEX idx_rt_token_hash (token_hash),
+ -- Revocación de una familia completa.
+ INDEX idx_rt_family_id (family_id),
+ -- Limpieza de tokens caducados.
+ INDEX idx_rt_expires_at (expires_at)
+);
+
 
@@ -0,0 +1,44 @@
+package org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.benchmarks;
+
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.entities.Role;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.services.RoleAuthorityIndex;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.utils.JwtKeyRing;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.utils.JwtUtil;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.security.KeyPair;
+import java.util.List;
+
+/**
+ * Construcción de {@link JwtUtil} fuera del contexto de Spring para los benchmarks
+ * (mismos roles que {@code data.sql}).
+ */
+final class JwtBenchmarkSupport {
+
+    private JwtBenchmarkSupport() {
+    }
+
+    static RoleAuthorityIndex roleAuthorityIndex() {
+        RoleAuthorityIndex index = new RoleAuthorityIndex();
+        index.load(List.of(
+                role(1L, "ROLE_ADMIN"),
+                role(2L, "ROLE_USER"),
+                role(3L, "ROLE_MANAGER")
+        ));
+        return index;
+    }
+
+    static JwtUtil jwtUtil(KeyPair keyPair) {
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "jwtKeyRing", JwtKeyRing.ofKeyPair(keyPair));
+        ReflectionTestUtils.setField(jwtUtil, "roleAuthorityIndex", roleAuthorityIndex());
+        ReflectionTestUtils.invokeMethod(jwtUtil, "initParser");
+        return jwtUtil;
+    }
+
+    private static Role role(Long id, String name) {
+        Role role = new Role(name, name, null);
+        role.setId(id);
+        return role;
+    }
+}
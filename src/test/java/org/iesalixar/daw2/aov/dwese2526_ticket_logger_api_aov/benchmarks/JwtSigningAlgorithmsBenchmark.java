@@ -0,0 +1,83 @@
+package org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.benchmarks;
+
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.utils.JwtUtil;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.spec.ECGenParameterSpec;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Firma y verificación de JWT con cada algoritmo soportado por el keystore
+ * (RS256, ES256, EdDSA/Ed25519), usando {@link JwtUtil} tal y como se usa en el login
+ * ({@code generateToken}) y en cada petición ({@code verify}).
+ *
+ * <p>El tamaño del token (y por tanto de la cabecera Authorization) se imprime en el
+ * {@code @Setup} de cada algoritmo.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtSigningAlgorithmsBenchmark {
+
+    @Param({"RS256", "ES256", "EdDSA"})
+    public String algorithm;
+
+    private static final List<String> ROLES = List.of("ROLE_ADMIN", "ROLE_USER");
+
+    private JwtUtil jwtUtil;
+    private String token;
+
+    @Setup
+    public void setup() throws Exception {
+        jwtUtil = JwtBenchmarkSupport.jwtUtil(generateKeyPair(algorithm));
+
+        token = jwtUtil.generateToken("admin@app.local", ROLES);
+        System.out.printf("%n[%s] tamaño del token: %d bytes%n",
+                algorithm, token.getBytes(StandardCharsets.US_ASCII).length);
+    }
+
+    @Benchmark
+    public String sign() {
+        return jwtUtil.generateToken("admin@app.local", ROLES);
+    }
+
+    @Benchmark
+    public Object verify() {
+        return jwtUtil.verify(token);
+    }
+
+    private static KeyPair generateKeyPair(String algorithm) throws Exception {
+        switch (algorithm) {
+            case "RS256": {
+                KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+                generator.initialize(2048);
+                return generator.generateKeyPair();
+            }
+            case "ES256": {
+                KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+                generator.initialize(new ECGenParameterSpec("secp256r1"));
+                return generator.generateKeyPair();
+            }
+            case "EdDSA":
+                return KeyPairGenerator.getInstance("Ed25519").generateKeyPair();
+            default:
+                throw new IllegalArgumentException(algorithm);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtSigningAlgorithmsBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
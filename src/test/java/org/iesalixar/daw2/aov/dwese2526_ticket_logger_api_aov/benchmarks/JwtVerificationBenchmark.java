@@ -0,0 +1,84 @@
+package org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.benchmarks;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.utils.JwtUtil;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.utils.VerifiedToken;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PublicKey;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara el coste de autenticar una petición con JWT:
+ * <ul>
+ *   <li>{@code legacyThreeVerifications}: camino antiguo del filtro
+ *       (extractUsername + validateToken + extractAllClaims, cada uno con su parser y su verificación RSA).</li>
+ *   <li>{@code verifyOnce}: {@link JwtUtil#verify(String)} con el parser compartido.</li>
+ * </ul>
+ *
+ * <p>Ejecución: desde el IDE con {@link #main}, o tras {@code mvn test-compile} lanzando
+ * {@code org.openjdk.jmh.Main JwtVerificationBenchmark} con el classpath de test.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtVerificationBenchmark {
+
+    private PublicKey publicKey;
+    private JwtUtil jwtUtil;
+    private String token;
+
+    @Setup
+    public void setup() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        KeyPair keyPair = generator.generateKeyPair();
+        publicKey = keyPair.getPublic();
+
+        jwtUtil = JwtBenchmarkSupport.jwtUtil(keyPair);
+
+        token = jwtUtil.generateToken("admin@app.local", List.of("ROLE_ADMIN", "ROLE_USER"));
+    }
+
+    @Benchmark
+    public Object legacyThreeVerifications() {
+        // 1) extractUsername
+        String username = Jwts.parser().verifyWith(publicKey).build()
+                .parseSignedClaims(token).getPayload().getSubject();
+
+        // 2) validateToken
+        Claims validated = Jwts.parser().verifyWith(publicKey).build()
+                .parseSignedClaims(token).getPayload();
+        boolean valid = username.equals(validated.getSubject())
+                && !validated.getExpiration().before(new Date());
+
+        // 3) extractAllClaims (roles)
+        Claims claims = Jwts.parser().verifyWith(publicKey).build()
+                .parseSignedClaims(token).getPayload();
+
+        return valid ? claims : null;
+    }
+
+    @Benchmark
+    public Object verifyOnce() {
+        VerifiedToken verified = jwtUtil.verify(token);
+        return verified.getRoleMask();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtVerificationBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
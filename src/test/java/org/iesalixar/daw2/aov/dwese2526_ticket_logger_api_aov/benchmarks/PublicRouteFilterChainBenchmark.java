@@ -0,0 +1,180 @@
+package org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.benchmarks;
+
+import ch.qos.logback.classic.Level;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.filters.JwtAuthenticationFilter;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.services.RevokedTokenDenylist;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.services.UserSecurityStateRegistry;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.utils.JwtPrecheck;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.utils.JwtUtil;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.utils.VerifiedTokenCache;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authorization.SingleResultAuthorizationManager;
+import org.springframework.security.web.DefaultSecurityFilterChain;
+import org.springframework.security.web.FilterChainProxy;
+import org.springframework.security.web.access.ExceptionTranslationFilter;
+import org.springframework.security.web.access.intercept.AuthorizationFilter;
+import org.springframework.security.web.authentication.AnonymousAuthenticationFilter;
+import org.springframework.security.web.authentication.Http403ForbiddenEntryPoint;
+import org.springframework.security.web.context.RequestAttributeSecurityContextRepository;
+import org.springframework.security.web.context.SecurityContextHolderFilter;
+import org.springframework.security.web.header.HeaderWriterFilter;
+import org.springframework.security.web.header.writers.XContentTypeOptionsHeaderWriter;
+import org.springframework.security.web.util.matcher.AnyRequestMatcher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coste por petición de la seguridad para una imagen de {@code /uploads/**}:
+ * <ul>
+ *   <li>{@code fullChain}: cadena general (contexto de seguridad, {@link JwtAuthenticationFilter},
+ *       autenticación anónima, traducción de excepciones y autorización), como antes.</li>
+ *   <li>{@code publicChain}: cadena mínima de rutas públicas/estáticas (cabeceras + permitAll).</li>
+ * </ul>
+ *
+ * <p>{@code withToken=true} simula la SPA que envía {@code Authorization: Bearer} en todas sus
+ * peticiones; {@code false}, una etiqueta {@code <img>}. La caché de JWT verificados está activa,
+ * así que no se mide la verificación de firma sino el resto del procesamiento del token.</p>
+ *
+ * <p>Ejecución: desde el IDE con {@link #main}, o tras {@code mvn test-compile} lanzando
+ * {@code org.openjdk.jmh.Main PublicRouteFilterChainBenchmark} con el classpath de test.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PublicRouteFilterChainBenchmark {
+
+    private static final FilterChain TERMINAL = (request, response) -> { };
+
+    @Param({"true", "false"})
+    public boolean withToken;
+
+    private FilterChainProxy fullChain;
+    private FilterChainProxy publicChain;
+    private String authorization;
+
+    @Setup
+    public void setup() throws Exception {
+        // Sin Spring Boot, Logback arranca en DEBUG y el log de los filtros falsearía la medida
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.INFO);
+
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(256);
+        KeyPair keyPair = generator.generateKeyPair();
+
+        JwtUtil jwtUtil = JwtBenchmarkSupport.jwtUtil(keyPair);
+        authorization = "Bearer " + jwtUtil.generateToken("user@app.local", List.of("ROLE_USER"));
+
+        JwtAuthenticationFilter jwtFilter = jwtAuthenticationFilter(jwtUtil);
+
+        fullChain = proxy(
+                new SecurityContextHolderFilter(new RequestAttributeSecurityContextRepository()),
+                new HeaderWriterFilter(List.of(new XContentTypeOptionsHeaderWriter())),
+                jwtFilter,
+                new AnonymousAuthenticationFilter("benchmark"),
+                new ExceptionTranslationFilter(new Http403ForbiddenEntryPoint()),
+                new AuthorizationFilter(SingleResultAuthorizationManager.permitAll())
+        );
+
+        publicChain = proxy(
+                new HeaderWriterFilter(List.of(new XContentTypeOptionsHeaderWriter())),
+                new AuthorizationFilter(SingleResultAuthorizationManager.permitAll())
+        );
+    }
+
+    @Benchmark
+    public Object fullChain() throws Exception {
+        return run(fullChain);
+    }
+
+    @Benchmark
+    public Object publicChain() throws Exception {
+        return run(publicChain);
+    }
+
+    private Object run(FilterChainProxy proxy) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/uploads/avatar.png");
+        if (withToken) {
+            request.addHeader("Authorization", authorization);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        proxy.doFilter(request, response, TERMINAL);
+        return response;
+    }
+
+    private static FilterChainProxy proxy(Filter... filters) {
+        FilterChainProxy proxy = new FilterChainProxy(
+                new DefaultSecurityFilterChain(AnyRequestMatcher.INSTANCE, filters));
+        proxy.afterPropertiesSet();
+        return proxy;
+    }
+
+    /**
+     * Filtro JWT en modo sin estado con sus dependencias reales en memoria
+     * (el registro de estado de usuarios acepta todos los tokens).
+     */
+    private static JwtAuthenticationFilter jwtAuthenticationFilter(JwtUtil jwtUtil) {
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+        JwtPrecheck precheck = new JwtPrecheck();
+        ReflectionTestUtils.setField(precheck, "jwtKeyRing", ReflectionTestUtils.getField(jwtUtil, "jwtKeyRing"));
+        ReflectionTestUtils.setField(precheck, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.invokeMethod(precheck, "initMetrics");
+
+        VerifiedTokenCache cache = new VerifiedTokenCache();
+        ReflectionTestUtils.setField(cache, "jwtUtil", jwtUtil);
+        ReflectionTestUtils.setField(cache, "jwtPrecheck", precheck);
+        ReflectionTestUtils.setField(cache, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "maximumSize", 10_000L);
+        ReflectionTestUtils.invokeMethod(cache, "init");
+
+        RevokedTokenDenylist denylist = new RevokedTokenDenylist();
+        ReflectionTestUtils.setField(denylist, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(denylist, "window", Duration.ofMinutes(15));
+        ReflectionTestUtils.setField(denylist, "expectedRevocationsPerWindow", 10_000);
+        ReflectionTestUtils.setField(denylist, "falsePositiveProbability", 0.01);
+        ReflectionTestUtils.invokeMethod(denylist, "init");
+
+        UserSecurityStateRegistry registry = new UserSecurityStateRegistry() {
+            @Override
+            public boolean isTokenAllowed(String email, Instant issuedAt) {
+                return true;
+            }
+        };
+
+        JwtAuthenticationFilter filter = new JwtAuthenticationFilter();
+        ReflectionTestUtils.setField(filter, "verifiedTokenCache", cache);
+        ReflectionTestUtils.setField(filter, "userSecurityStateRegistry", registry);
+        ReflectionTestUtils.setField(filter, "revokedTokenDenylist", denylist);
+        ReflectionTestUtils.setField(filter, "roleAuthorityIndex", JwtBenchmarkSupport.roleAuthorityIndex());
+        ReflectionTestUtils.setField(filter, "stateless", true);
+        return filter;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PublicRouteFilterChainBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
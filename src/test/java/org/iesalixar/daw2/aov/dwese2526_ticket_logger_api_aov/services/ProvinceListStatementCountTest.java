@@ -0,0 +1,103 @@
+package org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.dtos.ProvinceDTO;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.repositories.ProvinceRepository;
+import org.iesalixar.daw2.aov.dwese2526_ticket_logger_api_aov.repositories.RegionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Comprueba las sentencias SQL de listar provincias con el nombre de su región: la instantánea
+ * se carga con una única consulta (un JOIN de regiones y provincias) y
+ * {@link ProvinceServiceImpl#list} ya no lanza ninguna, sea cual sea el tamaño de página.
+ *
+ * <p>Sin BD: el {@link JdbcTemplate} es un mock que devuelve las filas del JOIN y registra
+ * cada consulta.</p>
+ */
+class ProvinceListStatementCountTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private ProvinceRepository provinceRepository;
+    private RegionRepository regionRepository;
+    private ProvinceServiceImpl provinceService;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            handler.processRow(row(1, "AND", "Andalucía", 7L, "41", "Sevilla"));
+            handler.processRow(row(1, "AND", "Andalucía", 8L, "29", "Málaga"));
+            handler.processRow(row(2, "MAD", "Comunidad de Madrid", 9L, "28", "Madrid"));
+            handler.processRow(row(3, "CAT", "Cataluña", 10L, "08", "Barcelona"));
+            handler.processRow(row(4, "CEU", "Ceuta", null, null, null));
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class));
+
+        ReferenceDataRegistry registry = new ReferenceDataRegistry();
+        ReflectionTestUtils.setField(registry, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(registry, "meterRegistry", new SimpleMeterRegistry());
+        registry.init();
+
+        provinceRepository = mock(ProvinceRepository.class);
+        regionRepository = mock(RegionRepository.class);
+        provinceService = new ProvinceServiceImpl(provinceRepository, regionRepository, registry,
+                mock(ApplicationEventPublisher.class));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 3, 25})
+    void listRunsNoStatementsAfterTheSingleJoinLoad(int pageSize) {
+        Page<ProvinceDTO> page = provinceService.list(PageRequest.of(0, pageSize, Sort.by("name")));
+
+        assertEquals(Math.min(pageSize, 4), page.getNumberOfElements());
+        assertEquals(4, page.getTotalElements());
+        assertEquals("Barcelona", page.getContent().getFirst().getName());
+        assertEquals("Cataluña", page.getContent().getFirst().getRegionName());
+
+        // Una sola consulta, la de la carga, y con un único JOIN; ninguna más al listar
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(jdbcTemplate, times(1)).query(sql.capture(), any(RowCallbackHandler.class));
+        verifyNoMoreInteractions(jdbcTemplate);
+        assertEquals(1, sql.getValue().split("\\bJOIN\\b", -1).length - 1);
+        verifyNoInteractions(provinceRepository, regionRepository);
+    }
+
+    /** Fila del JOIN; una región sin provincias trae las columnas de provincia a NULL. */
+    private static ResultSet row(long regionId, String regionCode, String regionName,
+                                 Long provinceId, String provinceCode, String provinceName) throws SQLException {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong("region_id")).thenReturn(regionId);
+        when(rs.getString("region_code")).thenReturn(regionCode);
+        when(rs.getString("region_name")).thenReturn(regionName);
+        when(rs.getLong("province_id")).thenReturn(provinceId == null ? 0L : provinceId);
+        when(rs.wasNull()).thenReturn(provinceId == null);
+        when(rs.getString("province_code")).thenReturn(provinceCode);
+        when(rs.getString("province_name")).thenReturn(provinceName);
+        return rs;
+    }
+}